@@ -37,8 +37,9 @@ public class EmailServiceBackendApplication {
             }
         }
 
-        System.out.println("DATABASE_URL: " + databaseUrl);
-        System.out.println("JWT_SECRET: " + System.getenv("JWT_SECRET"));
+        // Both carry credentials; only say whether they are set
+        System.out.println("DATABASE_URL: " + (databaseUrl != null ? "set" : "not set"));
+        System.out.println("JWT_SECRET: " + (System.getenv("JWT_SECRET") != null ? "set" : "not set"));
         System.out.println("JWT_EXPIRATION: " + System.getenv("JWT_EXPIRATION"));
 
         SpringApplication.run(EmailServiceBackendApplication.class, args);
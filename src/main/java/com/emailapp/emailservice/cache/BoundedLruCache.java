@@ -0,0 +1,97 @@
+package com.emailapp.emailservice.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Size-bounded LRU map for the in-memory caches (principals, recipients, login attempts, AI
+ * results). Entries are spread over up to 16 segments by key hash, each an access-ordered
+ * LinkedHashMap with its own lock and an equal share of maxEntries, so concurrent callers only
+ * wait for each other when their keys land in the same segment. Eviction is least recently used
+ * within a segment, which is close to LRU overall.
+ */
+public class BoundedLruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public BoundedLruCache(int maxEntries) {
+        int bound = Math.max(0, maxEntries);
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, bound));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spreads the remainder, so the segments add up to exactly maxEntries
+            segments[i] = new Segment<>(bound / count + (i < bound % count ? 1 : 0));
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public V remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    // Removes the entry only if it still maps to this value (e.g. an expired entry a put replaced)
+    public boolean remove(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key, value);
+        }
+    }
+
+    // Atomic read-modify-write of one key; a null result removes it
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.compute(key, remapping);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.emailapp.emailservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Monthly range partitioning of user_mailbox on received_at (opt-in, mail.partitioning.enabled,
+ * PostgreSQL 12+). Listings with a received_at bound, and the archival and retention jobs,
+ * then only touch the partitions of the months they need; old months sit untouched on disk.
+ *
+ * Converting the table copies every row into a new partitioned table under an exclusive lock, so
+ * it only happens with mail.partitioning.convert-on-startup, which the offline "migrate" profile
+ * sets (see SchemaMigrationCommand); a normal start on an unconverted table leaves it as it is.
+ * Partitions are then created partitions-ahead months in advance; a default partition catches
+ * anything else. The primary key becomes (id, received_at), as PostgreSQL requires of
+ * partitioned tables.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.partitioning.enabled", havingValue = "true")
+public class MailboxPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MailboxPartitionManager.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mail.partitioning.convert-on-startup:false}")
+    private boolean convertOnStartup;
+
+    @Value("${mail.partitioning.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    // Set once user_mailbox is known to be partitioned; until then maintenance does nothing
+    private volatile boolean partitioned;
+
+    // Called by SchemaInitializer on PostgreSQL, before anything else touches user_mailbox
+    public void partitionIfNeeded() {
+        if (!isPartitioned()) {
+            if (!convertOnStartup) {
+                log.warn("user_mailbox is not partitioned yet; run the migrate profile to convert it");
+                return;
+            }
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> convert());
+            log.info("user_mailbox converted to a monthly partitioned table");
+        }
+        partitioned = true;
+        ensurePartitions();
+    }
+
+    @Scheduled(
+            initialDelayString = "${mail.partitioning.maintenance-interval-ms:21600000}",
+            fixedDelayString = "${mail.partitioning.maintenance-interval-ms:21600000}"
+    )
+    public void ensurePartitions() {
+        if (!partitioned) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            try {
+                createPartition("user_mailbox", current.plusMonths(i));
+            } catch (Exception e) {
+                // Only when the default partition already holds rows of that month
+                log.warn("Could not create user_mailbox partition for {}: {}", current.plusMonths(i), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('user_mailbox')", String.class);
+        return "p".equals(kind);
+    }
+
+    // Same columns, data and index names as before; partitions cover every month with rows
+    private void convert() {
+        jdbcTemplate.execute("LOCK TABLE user_mailbox IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.update("UPDATE user_mailbox um SET received_at = coalesce(m.sent_at, now()) " +
+                "FROM mails m WHERE m.mail_id = um.mail_id AND um.received_at IS NULL");
+
+        jdbcTemplate.execute("CREATE TABLE user_mailbox_partitioned (LIKE user_mailbox INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (received_at)");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox_partitioned ALTER COLUMN received_at SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox_partitioned " +
+                "ADD CONSTRAINT user_mailbox_partitioned_pkey PRIMARY KEY (id, received_at)");
+
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT min(received_at) FROM user_mailbox", LocalDateTime.class);
+        YearMonth current = YearMonth.now();
+        for (YearMonth month = oldest != null ? YearMonth.from(oldest) : current;
+             !month.isAfter(current); month = month.plusMonths(1)) {
+            createPartition("user_mailbox_partitioned", month);
+        }
+        jdbcTemplate.execute("CREATE TABLE user_mailbox_default PARTITION OF user_mailbox_partitioned DEFAULT");
+
+        jdbcTemplate.update("INSERT INTO user_mailbox_partitioned SELECT * FROM user_mailbox");
+        jdbcTemplate.execute("DROP TABLE user_mailbox");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox_partitioned RENAME TO user_mailbox");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox RENAME CONSTRAINT user_mailbox_partitioned_pkey TO user_mailbox_pkey");
+
+        // The entity's indexes and foreign keys, which the drop took with it
+        jdbcTemplate.execute("CREATE INDEX idx_user_folder ON user_mailbox (user_id, folder)");
+        jdbcTemplate.execute("CREATE INDEX idx_mail_id ON user_mailbox (mail_id)");
+        jdbcTemplate.execute("CREATE INDEX idx_user_folder_received ON user_mailbox (user_id, folder, received_at, id)");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox ADD CONSTRAINT fk_user_mailbox_user " +
+                "FOREIGN KEY (user_id) REFERENCES users (user_id)");
+        jdbcTemplate.execute("ALTER TABLE user_mailbox ADD CONSTRAINT fk_user_mailbox_mail " +
+                "FOREIGN KEY (mail_id) REFERENCES mails (mail_id)");
+    }
+
+    // The conversion creates the partitions on the new table, before it takes the user_mailbox name
+    private void createPartition(String table, YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_mailbox_" + PARTITION_SUFFIX.format(month) +
+                " PARTITION OF " + table +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+}
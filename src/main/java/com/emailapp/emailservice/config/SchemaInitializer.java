@@ -0,0 +1,283 @@
+package com.emailapp.emailservice.config;
+
+import com.emailapp.emailservice.repository.MailSearchRepository;
+import com.emailapp.emailservice.service.MailArchiveService;
+import com.emailapp.emailservice.service.MailBodyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * Idempotent PostgreSQL schema fixes that ddl-auto=update cannot express.
+ * Runs once every bean is created, so after Hibernate has updated the schema, but before the web
+ * server accepts requests and before scheduled jobs start: nothing reads or writes a table while
+ * it is being migrated.
+ *
+ * A normal start only runs cheap IF NOT EXISTS DDL. Data migrations and backfills, which scan
+ * whole tables, run only in the offline migrate profile (schema.migrate-only), before a new
+ * version is started. Either way the work is serialized across instances by an advisory lock,
+ * so a rolling deploy never runs it twice at once.
+ */
+@Component
+public class SchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    private static final int SEARCH_BACKFILL_BATCH_SIZE = 1000;
+    private static final int BODY_MIGRATION_BATCH_SIZE = 1000;
+    private static final int BODY_DEDUP_BATCH_SIZE = 1000;
+    private static final int THREAD_BACKFILL_BATCH_SIZE = 1000;
+    private static final int TRASHED_AT_BACKFILL_BATCH_SIZE = 5000;
+    private static final String SCHEMA_LOCK = "hashtext('email-service schema')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MailSearchRepository mailSearchRepository;
+
+    @Autowired
+    private MailArchiveService mailArchiveService;
+
+    @Autowired
+    private MailBodyStore mailBodyStore;
+
+    // Present only with mail.partitioning.enabled
+    @Autowired(required = false)
+    private MailboxPartitionManager mailboxPartitionManager;
+
+    @Value("${schema.migrate-only:false}")
+    private boolean migrateOnly;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isPostgres()) {
+            return;
+        }
+
+        // Held by this connection's session while the steps run on other pooled connections
+        jdbcTemplate.execute((ConnectionCallback<Void>) lockConnection -> {
+            try (Statement statement = lockConnection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + SCHEMA_LOCK + ")");
+                try {
+                    initialize();
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + SCHEMA_LOCK + ")");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void initialize() {
+        // Opt-in monthly partitioning; converts user_mailbox before the indexes below are created on it
+        if (mailboxPartitionManager != null) {
+            mailboxPartitionManager.partitionIfNeeded();
+        }
+
+        if (migrateOnly) {
+            // user_mailbox ids used to come from an IDENTITY column. Move the pooled sequence past any
+            // legacy ids, but never into a block another instance may already have allocated. A fresh
+            // sequence (is_called false) has handed out nothing yet: its next value is last_value itself.
+            jdbcTemplate.execute(
+                    "SELECT setval('user_mailbox_seq', (SELECT MAX(id) + 1 FROM user_mailbox), false) " +
+                    "WHERE (SELECT MAX(id) FROM user_mailbox) >= " +
+                    "(SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM user_mailbox_seq)");
+
+            // Mail content used to be a TEXT column on mails; it now lives in mail_bodies
+            migrateLegacyBodies();
+            // Bodies are now shared by content hash; fold duplicates stored before that
+            dedupLegacyBodies();
+            // Mails are now grouped into threads; each older mail becomes a thread of its own
+            backfillThreads();
+        } else if (hasLegacyContentColumn()) {
+            log.warn("Data migrations are pending (mails.content still exists); run the migrate profile");
+        }
+
+        // Mailbox cleanup: the collector's sweep over deleted rows, deleted-row and trash retention, each served
+        // by a partial index over just the rows they look at
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_user_mailbox_deleted_mail ON user_mailbox (mail_id) " +
+                "WHERE is_deleted = true");
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_user_mailbox_deleted_at ON user_mailbox (deleted_at) " +
+                "WHERE is_deleted = true");
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_user_mailbox_trashed ON user_mailbox (trashed_at) " +
+                "WHERE folder = 'TRASH' AND is_deleted = false");
+        // Archival: the rows archive chunks pick, oldest first
+        if (mailArchiveService.isEnabled()) {
+            jdbcTemplate.execute(
+                    "CREATE INDEX IF NOT EXISTS idx_user_mailbox_archivable ON user_mailbox (received_at) " +
+                    "WHERE folder IN ('INBOX', 'SENT') AND is_deleted = false");
+        }
+
+        // Full-text search: weighted tsvector maintained by MailService.sendMail, GIN-indexed
+        jdbcTemplate.execute("ALTER TABLE mails ADD COLUMN IF NOT EXISTS search_vector tsvector");
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_mails_search_vector ON mails USING GIN (search_vector)");
+
+        if (migrateOnly) {
+            backfillTrashedAt();
+            backfillSearchIndex();
+        }
+    }
+
+    private boolean hasLegacyContentColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+                "WHERE table_name = 'mails' AND column_name = 'content')", Boolean.class));
+    }
+
+    // Moves mails.content into mail_bodies (uncompressed) in batches, then drops the column.
+    // Each batch pre-assigns body ids so one statement can insert the bodies and link them.
+    private void migrateLegacyBodies() {
+        if (!hasLegacyContentColumn()) {
+            return;
+        }
+
+        int total = 0;
+        int migrated;
+        do {
+            migrated = jdbcTemplate.update(
+                    "WITH batch AS (" +
+                    "  SELECT mail_id, convert_to(coalesce(content, ''), 'UTF8') AS data, " +
+                    "         nextval(pg_get_serial_sequence('mail_bodies', 'body_id')) AS body_id " +
+                    "  FROM mails WHERE body_id IS NULL ORDER BY mail_id LIMIT ?), " +
+                    "bodies AS (" +
+                    "  INSERT INTO mail_bodies (body_id, encoding, data, original_size) " +
+                    "  SELECT body_id, 'PLAIN', data, octet_length(data) FROM batch) " +
+                    "UPDATE mails m SET body_id = b.body_id, content = NULL FROM batch b WHERE m.mail_id = b.mail_id",
+                    BODY_MIGRATION_BATCH_SIZE);
+            total += migrated;
+        } while (migrated == BODY_MIGRATION_BATCH_SIZE);
+
+        jdbcTemplate.execute("ALTER TABLE mails DROP COLUMN content");
+        log.info("Mail bodies migrated for {} mails", total);
+    }
+
+    // Hashes unhashed plain bodies in batches and merges each hash group into one keeper (an
+    // already hashed body, else the lowest id): mails are relinked, the keeper's ref_count grows by
+    // the mails it gained, and the duplicates are deleted. Gzip bodies written before dedup cannot
+    // be hashed in SQL; they stay unshared with their single reference. So do bodies below the
+    // dedup threshold, which new mails store unhashed on purpose; the index leaves them out, so
+    // they are not rescanned on every start. Its name carries the threshold it was built for.
+    private void dedupLegacyBodies() {
+        int minBytes = mailBodyStore.getDedupMinBytes();
+        String candidates = "content_hash IS NULL AND encoding = 'PLAIN' AND original_size >= " + minBytes;
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_mail_bodies_unhashed");
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_mail_bodies_dedup_from_" + minBytes + " ON mail_bodies (body_id) " +
+                "WHERE " + candidates);
+
+        int total = 0;
+        int hashed;
+        do {
+            hashed = jdbcTemplate.update(
+                    "WITH batch AS (" +
+                    "  SELECT body_id, encode(sha256(data), 'hex') AS hash FROM mail_bodies " +
+                    "  WHERE " + candidates + " ORDER BY body_id LIMIT ?), " +
+                    "target AS (" +
+                    "  SELECT b.body_id, b.hash, coalesce(" +
+                    "    (SELECT e.body_id FROM mail_bodies e WHERE e.content_hash = b.hash), " +
+                    "    min(b.body_id) OVER (PARTITION BY b.hash)) AS keeper_id " +
+                    "  FROM batch b), " +
+                    "relinked AS (" +
+                    "  UPDATE mails m SET body_id = t.keeper_id FROM target t " +
+                    "  WHERE m.body_id = t.body_id AND t.body_id <> t.keeper_id RETURNING t.keeper_id), " +
+                    "dropped AS (" +
+                    "  DELETE FROM mail_bodies d USING target t " +
+                    "  WHERE d.body_id = t.body_id AND t.body_id <> t.keeper_id), " +
+                    "gained AS (SELECT keeper_id, count(*) AS mails FROM relinked GROUP BY keeper_id) " +
+                    "UPDATE mail_bodies k SET content_hash = t.hash, " +
+                    "  ref_count = k.ref_count + coalesce(g.mails, 0) " +
+                    "FROM (SELECT DISTINCT keeper_id, hash FROM target) t " +
+                    "LEFT JOIN gained g ON g.keeper_id = t.keeper_id " +
+                    "WHERE k.body_id = t.keeper_id",
+                    BODY_DEDUP_BATCH_SIZE);
+            total += hashed;
+        } while (hashed > 0);
+
+        if (total > 0) {
+            log.info("Mail bodies deduplicated into {} shared bodies", total);
+        }
+    }
+
+    // Gives unthreaded mails a thread each, in batches: the thread row, one summary per user over
+    // their live mailbox rows, and the mail's thread_id, with thread ids pre-assigned per batch
+    private void backfillThreads() {
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_mails_unthreaded ON mails (mail_id) WHERE thread_id IS NULL");
+
+        int total = 0;
+        int threaded;
+        do {
+            threaded = jdbcTemplate.update(
+                    "WITH batch AS (" +
+                    "  SELECT mail_id, sender_id, subject, sent_at, " +
+                    "         nextval(pg_get_serial_sequence('mail_threads', 'thread_id')) AS thread_id " +
+                    "  FROM mails WHERE thread_id IS NULL ORDER BY mail_id LIMIT ?), " +
+                    "threads AS (" +
+                    "  INSERT INTO mail_threads (thread_id, subject, message_count, last_mail_id, last_activity_at, participants) " +
+                    "  SELECT b.thread_id, coalesce(b.subject, ''), 1, b.mail_id, b.sent_at, left(" +
+                    "    (SELECT array_to_string((array_agg(p.email ORDER BY p.sender DESC, p.email))[1:20], ',') FROM (" +
+                    "      SELECT u.email, true AS sender FROM users u WHERE u.user_id = b.sender_id " +
+                    "      UNION SELECT u.email, false FROM user_mailbox um JOIN users u ON u.user_id = um.user_id " +
+                    "      WHERE um.mail_id = b.mail_id AND um.mail_role IN ('RECIPIENT', 'CC')) p), 2000) " +
+                    "  FROM batch b), " +
+                    "summaries AS (" +
+                    "  INSERT INTO user_threads (user_id, thread_id, message_count, unread_count, last_mail_id, last_activity_at) " +
+                    "  SELECT um.user_id, b.thread_id, count(*), count(*) FILTER (WHERE NOT um.is_read), " +
+                    "         b.mail_id, max(um.received_at) " +
+                    "  FROM batch b JOIN user_mailbox um ON um.mail_id = b.mail_id AND NOT um.is_deleted " +
+                    "  GROUP BY um.user_id, b.thread_id, b.mail_id " +
+                    "  ON CONFLICT (user_id, thread_id) DO NOTHING) " +
+                    "UPDATE mails m SET thread_id = b.thread_id FROM batch b WHERE m.mail_id = b.mail_id",
+                    THREAD_BACKFILL_BATCH_SIZE);
+            total += threaded;
+        } while (threaded > 0);
+
+        if (total > 0) {
+            log.info("Threads backfilled for {} mails", total);
+        }
+    }
+
+    // Trash from before retention existed has no trashed_at; its retention period starts now
+    private void backfillTrashedAt() {
+        int updated;
+        do {
+            updated = jdbcTemplate.update(
+                    "UPDATE user_mailbox SET trashed_at = now() WHERE id IN (" +
+                    "  SELECT id FROM user_mailbox WHERE folder = 'TRASH' AND is_deleted = false " +
+                    "  AND trashed_at IS NULL LIMIT ?)",
+                    TRASHED_AT_BACKFILL_BATCH_SIZE);
+        } while (updated == TRASHED_AT_BACKFILL_BATCH_SIZE);
+    }
+
+    // Mails sent before search existed, indexed in small batches to keep transactions short
+    private void backfillSearchIndex() {
+        int total = 0;
+        int indexed;
+        do {
+            indexed = mailSearchRepository.backfill(SEARCH_BACKFILL_BATCH_SIZE);
+            total += indexed;
+        } while (indexed == SEARCH_BACKFILL_BATCH_SIZE);
+
+        if (total > 0) {
+            log.info("Search index backfilled for {} mails", total);
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -0,0 +1,32 @@
+package com.emailapp.emailservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Offline migration mode (schema.migrate-only, set by the "migrate" profile). SchemaInitializer
+ * has already migrated the schema while the context started; this exits before any traffic or
+ * scheduled work, so long migrations such as the partition conversion never run under load.
+ */
+@Component
+@ConditionalOnProperty(name = "schema.migrate-only", havingValue = "true")
+public class SchemaMigrationCommand implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationCommand.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Schema migration finished, exiting");
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+}
@@ -0,0 +1,156 @@
+package com.emailapp.emailservice.controller;
+
+import com.emailapp.emailservice.dto.response.ApiResponse;
+import com.emailapp.emailservice.dto.response.AttachmentResponse;
+import com.emailapp.emailservice.entity.MailAttachment;
+import com.emailapp.emailservice.service.AttachmentService;
+import com.emailapp.emailservice.service.AttachmentTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/attachments")
+@CrossOrigin(origins = "*")  // Allow React frontend to connect
+public class AttachmentController {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentController.class);
+
+    // Tomcat serves the file with sendfile(2) after the servlet returns when these are set
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    // POST /api/attachments/user/{userId}?fileName=report.pdf - Upload one file as the raw request body.
+    // The body is streamed to disk; use the returned attachmentId in SendMailRequest.attachmentIds.
+    @PostMapping("/user/{userId}")
+    public ResponseEntity<ApiResponse> upload(
+            @PathVariable Long userId,
+            @RequestParam String fileName,
+            HttpServletRequest request) {
+        try {
+            AttachmentResponse attachment = attachmentService.upload(
+                    userId, fileName, request.getContentType(),
+                    request.getInputStream(), request.getContentLengthLong());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new ApiResponse(true, "Attachment uploaded", attachment));
+        } catch (AttachmentTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/attachments/{attachmentId}/user/{userId} - Download, honouring a single byte Range
+    @GetMapping("/{attachmentId}/user/{userId}")
+    public ResponseEntity<ApiResponse> download(
+            @PathVariable Long attachmentId,
+            @PathVariable Long userId,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        AttachmentService.Download download;
+        try {
+            download = attachmentService.openForDownload(userId, attachmentId);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+
+        MailAttachment attachment = download.attachment();
+        long size = attachment.getSizeBytes();
+        String etag = "\"" + attachment.getSha256() + "\"";
+
+        long start = 0;
+        long end = size - 1;
+        boolean partial = false;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        // Content never changes for a given hash, so If-Range only has to match the ETag
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multi-range requests are answered with the whole file
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        response.setStatus(partial ? HttpStatus.PARTIAL_CONTENT.value() : HttpStatus.OK.value());
+        response.setContentType(attachment.getContentType());
+        // The type is whatever the uploader claimed; browsers must not sniff it into something runnable
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(end - start + 1);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(attachment.getFileName(), StandardCharsets.UTF_8)
+                .build().toString());
+        if (partial) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        if (size == 0) {
+            return null;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, download.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return null;
+        }
+
+        // No sendfile (other container, or TLS): still never buffer the whole file
+        try (FileChannel file = FileChannel.open(download.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (NoSuchFileException e) {
+            response.reset();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, "Attachment content missing", null));
+        } catch (IOException e) {
+            // Client went away mid-download
+            log.warn("Attachment {} download aborted: {}", attachmentId, e.getMessage());
+        }
+        return null;
+    }
+}
@@ -5,7 +5,12 @@ import com.emailapp.emailservice.dto.response.ApiResponse;
 import com.emailapp.emailservice.dto.response.AuthResponse;
 import com.emailapp.emailservice.entity.User;
 import com.emailapp.emailservice.repository.UserRepository;
+import com.emailapp.emailservice.security.JwtAuthenticationFilter;
 import com.emailapp.emailservice.security.JwtUtil;
+import com.emailapp.emailservice.security.LoginRateLimiter;
+import com.emailapp.emailservice.security.LoginThrottledException;
+import com.emailapp.emailservice.security.PasswordHashingExecutor;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,6 +32,12 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtTokenUtil;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @Autowired
     private UserRepository UserRepository;
     @Autowired
@@ -34,14 +45,20 @@ public class AuthController {
 
     // POST /api/auth/login - User login
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                             HttpServletRequest request) {
 
         try{
-            // Authenticate user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()
+            // Refuse excess attempts before any password hashing happens
+            loginRateLimiter.checkAttempt(request.getRemoteAddr(), loginRequest.getUsername());
+
+            // Authenticate user (BCrypt runs on the bounded hashing pool)
+            Authentication authentication = passwordHashingExecutor.execute(() ->
+                    authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(
+                                    loginRequest.getUsername(),
+                                    loginRequest.getPassword()
+                            )
                     )
             );
 
@@ -65,12 +82,25 @@ public class AuthController {
         }catch(BadCredentialsException e){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse(false, "Invalid username or password", null));
+        }catch(LoginThrottledException e){
+            HttpStatus status = e.isOverloaded() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+            return ResponseEntity.status(status)
+                    .body(new ApiResponse(false, e.getMessage(), null));
         }catch (Exception e){
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(false, "Login Failed: "+e.getMessage(), null));
         }
     }
 
+    // POST /api/auth/stream-ticket - Short-lived ticket for event streams and download links
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<ApiResponse> streamTicket(
+            Authentication authentication,
+            @RequestAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE) Long userId) {
+        String ticket = jwtTokenUtil.generateStreamTicket(authentication.getName(), userId);
+        return ResponseEntity.ok(new ApiResponse(true, "Stream ticket issued", ticket));
+    }
+
     // GET /api/auth/validate - Validate token
     @GetMapping("/validate")
     public ResponseEntity<ApiResponse> validate(@RequestHeader("Authorixation") String authHeader) {
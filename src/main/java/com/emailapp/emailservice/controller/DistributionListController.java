@@ -0,0 +1,140 @@
+package com.emailapp.emailservice.controller;
+
+import com.emailapp.emailservice.dto.request.BroadcastRequest;
+import com.emailapp.emailservice.dto.request.DistributionListRequest;
+import com.emailapp.emailservice.dto.request.ListMembersRequest;
+import com.emailapp.emailservice.dto.response.ApiResponse;
+import com.emailapp.emailservice.dto.response.BroadcastResponse;
+import com.emailapp.emailservice.dto.response.DistributionListResponse;
+import com.emailapp.emailservice.service.BroadcastService;
+import com.emailapp.emailservice.service.DistributionListService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/lists")
+@CrossOrigin(origins = "*")  // Allow React frontend to connect
+public class DistributionListController {
+
+    @Autowired
+    private DistributionListService distributionListService;
+
+    @Autowired
+    private BroadcastService broadcastService;
+
+    // POST /api/lists/user/{ownerId} - Create a distribution list
+    @PostMapping("/user/{ownerId}")
+    public ResponseEntity<ApiResponse> createList(
+            @PathVariable Long ownerId,
+            @Valid @RequestBody DistributionListRequest request) {
+        try {
+            DistributionListResponse list = distributionListService.createList(ownerId, request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new ApiResponse(true, "Distribution list created", list));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/lists/user/{ownerId} - The user's distribution lists with member counts
+    @GetMapping("/user/{ownerId}")
+    public ResponseEntity<ApiResponse> getLists(@PathVariable Long ownerId) {
+        try {
+            List<DistributionListResponse> lists = distributionListService.getLists(ownerId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Distribution lists retrieved", lists)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // DELETE /api/lists/{listId}/user/{ownerId} - Delete a distribution list
+    @DeleteMapping("/{listId}/user/{ownerId}")
+    public ResponseEntity<ApiResponse> deleteList(
+            @PathVariable Long listId,
+            @PathVariable Long ownerId) {
+        try {
+            distributionListService.deleteList(ownerId, listId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Distribution list deleted", null)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // POST /api/lists/{listId}/members/user/{ownerId} - Add members by email
+    @PostMapping("/{listId}/members/user/{ownerId}")
+    public ResponseEntity<ApiResponse> addMembers(
+            @PathVariable Long listId,
+            @PathVariable Long ownerId,
+            @Valid @RequestBody ListMembersRequest request) {
+        try {
+            int added = distributionListService.addMembers(ownerId, listId, request.getEmails());
+            return ResponseEntity.ok(
+                    new ApiResponse(true, added + " member(s) added", added)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // DELETE /api/lists/{listId}/members/user/{ownerId} - Remove members by email
+    @DeleteMapping("/{listId}/members/user/{ownerId}")
+    public ResponseEntity<ApiResponse> removeMembers(
+            @PathVariable Long listId,
+            @PathVariable Long ownerId,
+            @Valid @RequestBody ListMembersRequest request) {
+        try {
+            int removed = distributionListService.removeMembers(ownerId, listId, request.getEmails());
+            return ResponseEntity.ok(
+                    new ApiResponse(true, removed + " member(s) removed", removed)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // POST /api/lists/{listId}/broadcast/{senderId} - Mail every member; delivered in the background
+    @PostMapping("/{listId}/broadcast/{senderId}")
+    public ResponseEntity<ApiResponse> broadcast(
+            @PathVariable Long listId,
+            @PathVariable Long senderId,
+            @Valid @RequestBody BroadcastRequest request) {
+        try {
+            BroadcastResponse broadcast = broadcastService.start(senderId, listId, request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse(true, "Broadcast accepted for delivery", broadcast));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/lists/broadcasts/{broadcastId}/user/{senderId} - Delivery progress of a broadcast
+    @GetMapping("/broadcasts/{broadcastId}/user/{senderId}")
+    public ResponseEntity<ApiResponse> getBroadcastStatus(
+            @PathVariable Long broadcastId,
+            @PathVariable Long senderId) {
+        try {
+            BroadcastResponse broadcast = broadcastService.getStatus(senderId, broadcastId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Broadcast status retrieved", broadcast)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+}
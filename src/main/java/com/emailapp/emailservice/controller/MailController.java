@@ -1,18 +1,34 @@
 package com.emailapp.emailservice.controller;
 
+import com.emailapp.emailservice.dto.request.BatchSummaryRequest;
+import com.emailapp.emailservice.dto.request.BulkMailActionRequest;
+import com.emailapp.emailservice.dto.request.ReplyMailRequest;
 import com.emailapp.emailservice.dto.request.SendMailRequest;
 import com.emailapp.emailservice.dto.response.ApiResponse;
+import com.emailapp.emailservice.dto.response.MailPageResponse;
 import com.emailapp.emailservice.dto.response.MailResponse;
-import com.emailapp.emailservice.entity.Mail;
+import com.emailapp.emailservice.dto.response.MailSearchResponse;
+import com.emailapp.emailservice.dto.response.MailSummaryResponse;
+import com.emailapp.emailservice.dto.response.OutboxResponse;
+import com.emailapp.emailservice.dto.response.ThreadPageResponse;
+import com.emailapp.emailservice.security.JwtAuthenticationFilter;
 import com.emailapp.emailservice.service.AIService;
+import com.emailapp.emailservice.service.MailOutboxService;
 import com.emailapp.emailservice.service.MailService;
+import com.emailapp.emailservice.service.MailboxSubscriptionRegistry;
+import com.emailapp.emailservice.service.SummaryStreamService;
+import com.emailapp.emailservice.service.ThreadSummaryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/mails")
@@ -22,16 +38,28 @@ public class MailController {
     @Autowired
     private MailService mailService;
 
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private MailboxSubscriptionRegistry subscriptionRegistry;
+
     @Autowired
     private AIService aiService;
 
+    @Autowired
+    private SummaryStreamService summaryStreamService;
+
+    @Autowired
+    private ThreadSummaryService threadSummaryService;
+
     // POST /api/mails/send/{senderId} - Send new email
     @PostMapping("/send/{senderId}")
     public ResponseEntity<ApiResponse> sendMail(
             @PathVariable Long senderId,
             @Valid @RequestBody SendMailRequest request) {
         try {
-            Mail mail = mailService.sendMail(senderId, request);
+            MailResponse mail = mailService.sendMail(senderId, request);
             return ResponseEntity.ok(
                     new ApiResponse(true, "Mail sent successfully", mail)
             );
@@ -41,48 +69,205 @@ public class MailController {
         }
     }
 
-    // GET /api/mails/inbox/{userId} - Get user's inbox
+    // POST /api/mails/{mailId}/reply/{senderId} - Reply (or reply all) in the mail's thread
+    @PostMapping("/{mailId}/reply/{senderId}")
+    public ResponseEntity<ApiResponse> replyToMail(
+            @PathVariable Long mailId,
+            @PathVariable Long senderId,
+            @Valid @RequestBody ReplyMailRequest request) {
+        try {
+            MailResponse mail = mailService.replyToMail(senderId, mailId, request);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Reply sent successfully", mail)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // POST /api/mails/send/{senderId}/async - Queue an email, delivered in the background
+    @PostMapping("/send/{senderId}/async")
+    public ResponseEntity<ApiResponse> sendMailAsync(
+            @PathVariable Long senderId,
+            @Valid @RequestBody SendMailRequest request) {
+        try {
+            OutboxResponse queued = mailOutboxService.enqueue(senderId, request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse(true, "Mail accepted for delivery", queued));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/outbox/{outboxId} - Delivery status of a queued email
+    @GetMapping("/outbox/{outboxId}")
+    public ResponseEntity<ApiResponse> getOutboxStatus(@PathVariable Long outboxId) {
+        try {
+            OutboxResponse status = mailOutboxService.getStatus(outboxId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Delivery status retrieved", status)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/inbox/{userId}?cursor=&limit= - Get a page of the user's inbox
     @GetMapping("/inbox/{userId}")
-    public ResponseEntity<ApiResponse> getInbox(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse> getInbox(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<MailResponse> mails = mailService.getInbox(userId);
+            MailPageResponse page = mailService.getInbox(userId, cursor, limit);
             return ResponseEntity.ok(
-                    new ApiResponse(true, "Inbox retrieved successfully", mails)
+                    new ApiResponse(true, "Inbox retrieved successfully", page)
             );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
-    // GET /api/mails/sent/{userId} - Get user's sent emails
+    // GET /api/mails/sent/{userId}?cursor=&limit= - Get a page of the user's sent emails
     @GetMapping("/sent/{userId}")
-    public ResponseEntity<ApiResponse> getSentMails(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse> getSentMails(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            MailPageResponse page = mailService.getSentMails(userId, cursor, limit);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Sent mails retrieved successfully", page)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/archive/{userId}?cursor=&limit= - Get a page of the user's archived emails
+    @GetMapping("/archive/{userId}")
+    public ResponseEntity<ApiResponse> getArchived(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<MailResponse> mails = mailService.getSentMails(userId);
+            MailPageResponse page = mailService.getArchived(userId, cursor, limit);
             return ResponseEntity.ok(
-                    new ApiResponse(true, "Sent mails retrieved successfully", mails)
+                    new ApiResponse(true, "Archived mails retrieved successfully", page)
             );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
-    // GET /api/mails/trash/{userId} - Get user's trash
+    // GET /api/mails/trash/{userId}?cursor=&limit= - Get a page of the user's trash
     @GetMapping("/trash/{userId}")
-    public ResponseEntity<ApiResponse> getTrash(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse> getTrash(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<MailResponse> mails = mailService.getTrash(userId);
+            MailPageResponse page = mailService.getTrash(userId, cursor, limit);
             return ResponseEntity.ok(
-                    new ApiResponse(true, "Trash retrieved successfully", mails)
+                    new ApiResponse(true, "Trash retrieved successfully", page)
             );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
+    // GET /api/mails/search/{userId}?q=&page=&size= - Ranked full-text search over the user's mails
+    @GetMapping("/search/{userId}")
+    public ResponseEntity<ApiResponse> searchMails(
+            @PathVariable Long userId,
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            MailSearchResponse results = mailService.searchMails(userId, query, page, size);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Search completed", results)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/{mailId}/user/{userId} - Open one mail, including its content
+    @GetMapping("/{mailId}/user/{userId}")
+    public ResponseEntity<ApiResponse> getMail(
+            @PathVariable Long mailId,
+            @PathVariable Long userId) {
+        try {
+            MailResponse mail = mailService.getMail(userId, mailId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Mail retrieved", mail)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/threads/{userId}?cursor=&limit= - Get a page of the user's threads, latest activity first
+    @GetMapping("/threads/{userId}")
+    public ResponseEntity<ApiResponse> getThreads(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            ThreadPageResponse page = threadSummaryService.getThreads(userId, cursor, limit);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Threads retrieved successfully", page)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/threads/{threadId}/user/{userId} - The thread's mails the user can see, oldest first
+    @GetMapping("/threads/{threadId}/user/{userId}")
+    public ResponseEntity<ApiResponse> getThreadMessages(
+            @PathVariable Long threadId,
+            @PathVariable Long userId) {
+        try {
+            List<MailResponse> messages = mailService.getThreadMessages(userId, threadId);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Thread retrieved", messages)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
     // DELETE /api/mails/{mailId}/user/{userId} - Delete email
     @DeleteMapping("/{mailId}/user/{userId}")
     public ResponseEntity<ApiResponse> deleteMail(
@@ -131,6 +316,33 @@ public class MailController {
         }
     }
 
+    // PUT /api/mails/bulk/user/{userId} - Apply one action (read, star, move, delete...) to many mails
+    @PutMapping("/bulk/user/{userId}")
+    public ResponseEntity<ApiResponse> applyBulkAction(
+            @PathVariable Long userId,
+            @Valid @RequestBody BulkMailActionRequest request) {
+        try {
+            int updated = mailService.applyBulkAction(userId, request);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Bulk action applied to " + updated + " mails", updated)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/events/{userId}?ticket= - Server-Sent Events stream of the caller's own mailbox changes
+    @GetMapping(value = "/events/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMailboxEvents(
+            @PathVariable Long userId,
+            @RequestAttribute(name = JwtAuthenticationFilter.USER_ID_ATTRIBUTE, required = false) Long authenticatedUserId) {
+        if (!userId.equals(authenticatedUserId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(subscriptionRegistry.subscribe(userId));
+    }
+
     // GET /api/mails/unread/{userId} - Get unread count
     @GetMapping("/unread/{userId}")
     public ResponseEntity<ApiResponse> getUnreadCount(@PathVariable Long userId) {
@@ -149,13 +361,13 @@ public class MailController {
     public ResponseEntity<String> getEmailSummary(@PathVariable Long mailId){
 
         try{
-            String emailContent = mailService.getMailContentById(mailId);
+            Optional<String> emailContent = mailService.findMailContent(mailId);
 
-            if(emailContent == null || emailContent.isEmpty()){
+            if(emailContent.isEmpty()){
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Email content not found.");
             }
 
-            String summary = aiService.summarizeMail(emailContent);
+            String summary = aiService.summarizeMail(emailContent.get());
             return ResponseEntity.ok(summary);
 
         }catch(Exception e){
@@ -164,6 +376,42 @@ public class MailController {
         }
     }
 
+    // POST /api/mails/summaries/user/{userId} - Summaries for several of the user's mails in one call
+    @PostMapping("/summaries/user/{userId}")
+    public ResponseEntity<ApiResponse> getEmailSummaries(
+            @PathVariable Long userId,
+            @Valid @RequestBody BatchSummaryRequest request) {
+        try {
+            Map<Long, String> contents = mailService.getMailContents(userId, request.getMailIds());
+            Map<Long, String> summaries = aiService.summarizeBatch(contents);
+
+            List<MailSummaryResponse> response = request.getMailIds().stream()
+                    .distinct()
+                    .filter(summaries::containsKey)
+                    .map(mailId -> new MailSummaryResponse(mailId, summaries.get(mailId)))
+                    .toList();
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Summaries generated for " + response.size() + " mails", response)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // GET /api/mails/{mailId}/summary/stream - Summary streamed over SSE as it is generated
+    @GetMapping(value = "/{mailId}/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEmailSummary(@PathVariable Long mailId) {
+        // Checked before the stream takes an AI slot, so a missing mail costs nothing
+        Optional<String> emailContent = mailService.findMailContent(mailId);
+
+        if(emailContent.isEmpty()){
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        return ResponseEntity.ok(summaryStreamService.streamSummary(emailContent.get()));
+    }
+
     @GetMapping("/{mailId}/suggestions")
     public ResponseEntity<List<String>> getSmartReplies(@PathVariable Long mailId) {
         String emailContent = mailService.getMailContentById(mailId);
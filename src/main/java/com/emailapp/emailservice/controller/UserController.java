@@ -2,14 +2,21 @@ package com.emailapp.emailservice.controller;
 
 import com.emailapp.emailservice.dto.request.SignupRequest;
 import com.emailapp.emailservice.dto.response.ApiResponse;
+import com.emailapp.emailservice.dto.response.UserImportResponse;
 import com.emailapp.emailservice.dto.response.UserResponse;
+import com.emailapp.emailservice.security.LoginThrottledException;
 import com.emailapp.emailservice.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*")  // Allow React frontend to connect
@@ -18,6 +25,10 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    // Accounts allowed to run a bulk import; empty (the default) turns the endpoint off
+    @Value("${users.import.admin-usernames:}")
+    private Set<String> importAdmins;
+
     // POST /api/users/signup - Register new user
     @PostMapping("/signup")
     public ResponseEntity<ApiResponse> signup(@Valid @RequestBody SignupRequest request) {
@@ -26,12 +37,37 @@ public class UserController {
             return ResponseEntity.ok(
                     new ApiResponse(true, "User registered successfully", user)
             );
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
+    // POST /api/users/import - Bulk account import (onboarding, admins only); existing accounts are skipped
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse> importUsers(@RequestBody List<SignupRequest> requests,
+                                                   Authentication authentication) {
+        if (authentication == null || !importAdmins.contains(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ApiResponse(false, "User import is not allowed for this account", null));
+        }
+        try {
+            UserImportResponse result = userService.importUsers(requests);
+            return ResponseEntity.ok(
+                    new ApiResponse(true, "Imported " + result.getImported() + " of " + result.getRequested() + " users", result)
+            );
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
     // GET /api/users/{userId} - Get user by ID
     @GetMapping("/{userId}")
     public ResponseEntity<ApiResponse> getUser(@PathVariable Long userId) {
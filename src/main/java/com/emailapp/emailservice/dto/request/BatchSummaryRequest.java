@@ -0,0 +1,26 @@
+package com.emailapp.emailservice.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchSummaryRequest {
+
+    @NotEmpty(message = "At least one mail ID is required")
+    @Size(max = 100, message = "At most 100 mails can be summarized at once")
+    private List<Long> mailIds;
+
+    // Constructors
+    public BatchSummaryRequest() {
+    }
+
+    // Getters and Setters
+    public List<Long> getMailIds() {
+        return mailIds;
+    }
+
+    public void setMailIds(List<Long> mailIds) {
+        this.mailIds = mailIds;
+    }
+}
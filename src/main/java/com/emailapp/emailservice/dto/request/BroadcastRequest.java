@@ -0,0 +1,33 @@
+package com.emailapp.emailservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class BroadcastRequest {
+
+    @NotBlank(message = "Subject is required")
+    private String subject;
+
+    @NotBlank(message = "Content is required")
+    private String content;
+
+    // Constructors
+    public BroadcastRequest() {
+    }
+
+    // Getters and Setters
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,58 @@
+package com.emailapp.emailservice.dto.request;
+
+import com.emailapp.emailservice.entity.MailFolder;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkMailActionRequest {
+
+    public enum Action {
+        READ,
+        UNREAD,
+        STAR,
+        UNSTAR,
+        MOVE,
+        DELETE
+    }
+
+    @NotEmpty(message = "At least one mail ID is required")
+    @Size(max = 1000, message = "At most 1000 mails can be updated at once")
+    private List<Long> mailIds;
+
+    @NotNull(message = "Action is required")
+    private Action action;
+
+    private MailFolder targetFolder;  // Only used by MOVE
+
+    // Constructors
+    public BulkMailActionRequest() {
+    }
+
+    // Getters and Setters
+    public List<Long> getMailIds() {
+        return mailIds;
+    }
+
+    public void setMailIds(List<Long> mailIds) {
+        this.mailIds = mailIds;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public MailFolder getTargetFolder() {
+        return targetFolder;
+    }
+
+    public void setTargetFolder(MailFolder targetFolder) {
+        this.targetFolder = targetFolder;
+    }
+}
@@ -0,0 +1,35 @@
+package com.emailapp.emailservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class DistributionListRequest {
+
+    @NotBlank(message = "List name is required")
+    @Size(max = 100, message = "List name must be at most 100 characters")
+    private String name;
+
+    @Size(max = 500, message = "Description must be at most 500 characters")
+    private String description;
+
+    // Constructors
+    public DistributionListRequest() {
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,27 @@
+package com.emailapp.emailservice.dto.request;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class ListMembersRequest {
+
+    @NotEmpty(message = "At least one email is required")
+    @Size(max = 10000, message = "At most 10000 members can be changed at once")
+    private List<@Email(message = "Invalid email format") String> emails;
+
+    // Constructors
+    public ListMembersRequest() {
+    }
+
+    // Getters and Setters
+    public List<String> getEmails() {
+        return emails;
+    }
+
+    public void setEmails(List<String> emails) {
+        this.emails = emails;
+    }
+}
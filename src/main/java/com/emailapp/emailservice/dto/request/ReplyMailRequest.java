@@ -0,0 +1,57 @@
+package com.emailapp.emailservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReplyMailRequest {
+
+    @NotBlank(message = "Content is required")
+    private String content;
+
+    private String subject;  // Defaults to "Re: " + the original subject
+
+    private boolean replyAll;  // Also reply to the original To and Cc recipients
+
+    @Size(max = 20, message = "At most 20 attachments per mail")
+    private List<Long> attachmentIds = new ArrayList<>();
+
+    // Constructors
+    public ReplyMailRequest() {
+    }
+
+    // Getters and Setters
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public boolean isReplyAll() {
+        return replyAll;
+    }
+
+    public void setReplyAll(boolean replyAll) {
+        this.replyAll = replyAll;
+    }
+
+    public List<Long> getAttachmentIds() {
+        return attachmentIds;
+    }
+
+    public void setAttachmentIds(List<Long> attachmentIds) {
+        this.attachmentIds = attachmentIds != null ? attachmentIds : new ArrayList<>();
+    }
+}
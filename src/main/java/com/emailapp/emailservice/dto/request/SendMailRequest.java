@@ -1,13 +1,24 @@
 package com.emailapp.emailservice.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class SendMailRequest {
 
-    @NotBlank(message = "Recipient email is required")
     @Email(message = "Invalid email format")
-    private String recipientEmail;  // ✅ Change from List<Long> recipientIds
+    private String recipientEmail;  // Single-recipient shorthand, treated as a To address
+
+    private List<@Email(message = "Invalid email format") String> to = new ArrayList<>();
+
+    private List<@Email(message = "Invalid email format") String> cc = new ArrayList<>();
+
+    private List<@Email(message = "Invalid email format") String> bcc = new ArrayList<>();
 
     @NotBlank(message = "Subject is required")
     private String subject;
@@ -15,6 +26,17 @@ public class SendMailRequest {
     @NotBlank(message = "Content is required")
     private String content;  // ✅ Make sure it's 'content', not 'body'
 
+    // IDs returned by POST /api/attachments/user/{userId}, uploaded before sending
+    @Size(max = 20, message = "At most 20 attachments per mail")
+    private List<Long> attachmentIds = new ArrayList<>();
+
+    @JsonIgnore
+    @AssertTrue(message = "At least one recipient is required")
+    public boolean isRecipientPresent() {
+        return (recipientEmail != null && !recipientEmail.isBlank())
+                || !to.isEmpty() || !cc.isEmpty() || !bcc.isEmpty();
+    }
+
     // Getters and Setters
     public String getRecipientEmail() {
         return recipientEmail;
@@ -24,6 +46,30 @@ public class SendMailRequest {
         this.recipientEmail = recipientEmail;
     }
 
+    public List<String> getTo() {
+        return to;
+    }
+
+    public void setTo(List<String> to) {
+        this.to = to != null ? to : new ArrayList<>();
+    }
+
+    public List<String> getCc() {
+        return cc;
+    }
+
+    public void setCc(List<String> cc) {
+        this.cc = cc != null ? cc : new ArrayList<>();
+    }
+
+    public List<String> getBcc() {
+        return bcc;
+    }
+
+    public void setBcc(List<String> bcc) {
+        this.bcc = bcc != null ? bcc : new ArrayList<>();
+    }
+
     public String getSubject() {
         return subject;
     }
@@ -40,12 +86,24 @@ public class SendMailRequest {
         this.content = content;
     }
 
+    public List<Long> getAttachmentIds() {
+        return attachmentIds;
+    }
+
+    public void setAttachmentIds(List<Long> attachmentIds) {
+        this.attachmentIds = attachmentIds != null ? attachmentIds : new ArrayList<>();
+    }
+
     @Override
     public String toString() {
         return "SendMailRequest{" +
                 "recipientEmail='" + recipientEmail + '\'' +
+                ", to=" + to +
+                ", cc=" + cc +
+                ", bcc=" + bcc +
                 ", subject='" + subject + '\'' +
                 ", content='" + content + '\'' +
+                ", attachmentIds=" + attachmentIds +
                 '}';
     }
 }
\ No newline at end of file
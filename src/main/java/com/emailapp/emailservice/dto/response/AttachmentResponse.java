@@ -0,0 +1,76 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.time.LocalDateTime;
+
+public class AttachmentResponse {
+
+    private Long attachmentId;
+    private String fileName;
+    private String contentType;
+    private Long sizeBytes;
+    private String sha256;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public AttachmentResponse() {
+    }
+
+    public AttachmentResponse(Long attachmentId, String fileName, String contentType,
+                              Long sizeBytes, String sha256, LocalDateTime createdAt) {
+        this.attachmentId = attachmentId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.sizeBytes = sizeBytes;
+        this.sha256 = sha256;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getAttachmentId() {
+        return attachmentId;
+    }
+
+    public void setAttachmentId(Long attachmentId) {
+        this.attachmentId = attachmentId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
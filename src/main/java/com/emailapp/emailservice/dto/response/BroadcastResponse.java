@@ -0,0 +1,93 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.time.LocalDateTime;
+
+public class BroadcastResponse {
+
+    private Long broadcastId;
+    private Long listId;
+    private Long mailId;
+    private String status;
+    private Integer totalRecipients;
+    private Integer deliveredCount;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public BroadcastResponse() {
+    }
+
+    // Getters and Setters
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+
+    public Long getListId() {
+        return listId;
+    }
+
+    public void setListId(Long listId) {
+        this.listId = listId;
+    }
+
+    public Long getMailId() {
+        return mailId;
+    }
+
+    public void setMailId(Long mailId) {
+        this.mailId = mailId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(Integer totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public Integer getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public void setDeliveredCount(Integer deliveredCount) {
+        this.deliveredCount = deliveredCount;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
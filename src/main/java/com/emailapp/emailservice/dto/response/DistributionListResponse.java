@@ -0,0 +1,66 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.time.LocalDateTime;
+
+public class DistributionListResponse {
+
+    private Long listId;
+    private String name;
+    private String description;
+    private Long memberCount;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public DistributionListResponse() {
+    }
+
+    public DistributionListResponse(Long listId, String name, String description,
+                                    Long memberCount, LocalDateTime createdAt) {
+        this.listId = listId;
+        this.name = name;
+        this.description = description;
+        this.memberCount = memberCount;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getListId() {
+        return listId;
+    }
+
+    public void setListId(Long listId) {
+        this.listId = listId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getMemberCount() {
+        return memberCount;
+    }
+
+    public void setMemberCount(Long memberCount) {
+        this.memberCount = memberCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
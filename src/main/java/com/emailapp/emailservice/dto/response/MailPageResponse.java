@@ -0,0 +1,44 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.util.List;
+
+public class MailPageResponse {
+    private List<MailResponse> mails;
+    private String nextCursor;
+    private Boolean hasMore;
+
+    // Constructors
+    public MailPageResponse() {
+    }
+
+    public MailPageResponse(List<MailResponse> mails, String nextCursor, Boolean hasMore) {
+        this.mails = mails;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<MailResponse> getMails() {
+        return mails;
+    }
+
+    public void setMails(List<MailResponse> mails) {
+        this.mails = mails;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -1,23 +1,71 @@
 package com.emailapp.emailservice.dto.response;
 
+import com.emailapp.emailservice.entity.MailFolder;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class MailResponse {
+    @JsonIgnore
+    private Long mailboxId;
+    private LocalDateTime receivedAt;
     private Long mailId;
     private String subject;
-    private String content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String content;  // Only set by the mail detail endpoint
     private String senderName;
     private String senderEmail;
     private LocalDateTime sentAt;
     private Boolean isRead;
     private Boolean isStarred;
     private String folder;
+    private Boolean hasAttachments;
+    private Long threadId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AttachmentResponse> attachments;  // Only set by the mail detail endpoint
 
     // Constructors
     public MailResponse() {
     }
 
+    // Used by the constructor-projection queries in UserMailboxRepository
+    public MailResponse(Long mailboxId, LocalDateTime receivedAt, Long mailId, String subject,
+                        String senderFirstName, String senderLastName,
+                        String senderEmail, LocalDateTime sentAt, Boolean isRead,
+                        Boolean isStarred, MailFolder folder, Boolean hasAttachments, Long threadId) {
+        this.mailboxId = mailboxId;
+        this.receivedAt = receivedAt;
+        this.mailId = mailId;
+        this.subject = subject;
+        this.senderName = senderFirstName + " " + senderLastName;
+        this.senderEmail = senderEmail;
+        this.sentAt = sentAt;
+        this.isRead = isRead;
+        this.isStarred = isStarred;
+        this.folder = folder.toString();
+        this.hasAttachments = Boolean.TRUE.equals(hasAttachments);
+        this.threadId = threadId;
+    }
+
     // Getters and Setters
+    public Long getMailboxId() {
+        return mailboxId;
+    }
+
+    public void setMailboxId(Long mailboxId) {
+        this.mailboxId = mailboxId;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
     public Long getMailId() {
         return mailId;
     }
@@ -89,4 +137,28 @@ public class MailResponse {
     public void setFolder(String folder) {
         this.folder = folder;
     }
+
+    public Boolean getHasAttachments() {
+        return hasAttachments;
+    }
+
+    public void setHasAttachments(Boolean hasAttachments) {
+        this.hasAttachments = hasAttachments;
+    }
+
+    public Long getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(Long threadId) {
+        this.threadId = threadId;
+    }
+
+    public List<AttachmentResponse> getAttachments() {
+        return attachments;
+    }
+
+    public void setAttachments(List<AttachmentResponse> attachments) {
+        this.attachments = attachments;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.util.List;
+
+public class MailSearchResponse {
+    private String query;
+    private Integer page;
+    private Integer size;
+    private Boolean hasMore;
+    private List<MailResponse> mails;
+
+    // Constructors
+    public MailSearchResponse() {
+    }
+
+    public MailSearchResponse(String query, Integer page, Integer size, Boolean hasMore, List<MailResponse> mails) {
+        this.query = query;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+        this.mails = mails;
+    }
+
+    // Getters and Setters
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<MailResponse> getMails() {
+        return mails;
+    }
+
+    public void setMails(List<MailResponse> mails) {
+        this.mails = mails;
+    }
+}
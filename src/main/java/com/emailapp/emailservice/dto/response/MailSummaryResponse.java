@@ -0,0 +1,33 @@
+package com.emailapp.emailservice.dto.response;
+
+public class MailSummaryResponse {
+
+    private Long mailId;
+    private String summary;
+
+    // Constructors
+    public MailSummaryResponse() {
+    }
+
+    public MailSummaryResponse(Long mailId, String summary) {
+        this.mailId = mailId;
+        this.summary = summary;
+    }
+
+    // Getters and Setters
+    public Long getMailId() {
+        return mailId;
+    }
+
+    public void setMailId(Long mailId) {
+        this.mailId = mailId;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+}
@@ -0,0 +1,54 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.util.List;
+
+public class MailboxEventResponse {
+    private String type;
+    private List<Long> mailIds;
+    private MailResponse mail;
+    private Long unreadCount;
+
+    // Constructors
+    public MailboxEventResponse() {
+    }
+
+    public MailboxEventResponse(String type, List<Long> mailIds, MailResponse mail, Long unreadCount) {
+        this.type = type;
+        this.mailIds = mailIds;
+        this.mail = mail;
+        this.unreadCount = unreadCount;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public List<Long> getMailIds() {
+        return mailIds;
+    }
+
+    public void setMailIds(List<Long> mailIds) {
+        this.mailIds = mailIds;
+    }
+
+    public MailResponse getMail() {
+        return mail;
+    }
+
+    public void setMail(MailResponse mail) {
+        this.mail = mail;
+    }
+
+    public Long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
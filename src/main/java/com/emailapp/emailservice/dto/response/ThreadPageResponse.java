@@ -0,0 +1,44 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.util.List;
+
+public class ThreadPageResponse {
+    private List<ThreadResponse> threads;
+    private String nextCursor;
+    private Boolean hasMore;
+
+    // Constructors
+    public ThreadPageResponse() {
+    }
+
+    public ThreadPageResponse(List<ThreadResponse> threads, String nextCursor, Boolean hasMore) {
+        this.threads = threads;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<ThreadResponse> getThreads() {
+        return threads;
+    }
+
+    public void setThreads(List<ThreadResponse> threads) {
+        this.threads = threads;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,103 @@
+package com.emailapp.emailservice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class ThreadResponse {
+    @JsonIgnore
+    private Long userThreadId;
+    private Long threadId;
+    private String subject;
+    private List<String> participants;
+    private Integer messageCount;
+    private Integer unreadCount;
+    private Long lastMailId;
+    private LocalDateTime lastActivityAt;
+
+    // Constructors
+    public ThreadResponse() {
+    }
+
+    // Used by the constructor-projection queries in UserThreadRepository
+    public ThreadResponse(Long userThreadId, Long threadId, String subject, String participants,
+                          Integer messageCount, Integer unreadCount, Long lastMailId,
+                          LocalDateTime lastActivityAt) {
+        this.userThreadId = userThreadId;
+        this.threadId = threadId;
+        this.subject = subject;
+        this.participants = participants == null || participants.isEmpty()
+                ? List.of() : Arrays.asList(participants.split(","));
+        this.messageCount = messageCount;
+        this.unreadCount = unreadCount;
+        this.lastMailId = lastMailId;
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    // Getters and Setters
+    public Long getUserThreadId() {
+        return userThreadId;
+    }
+
+    public void setUserThreadId(Long userThreadId) {
+        this.userThreadId = userThreadId;
+    }
+
+    public Long getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(Long threadId) {
+        this.threadId = threadId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public List<String> getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(List<String> participants) {
+        this.participants = participants;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(Integer messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public Integer getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Integer unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public Long getLastMailId() {
+        return lastMailId;
+    }
+
+    public void setLastMailId(Long lastMailId) {
+        this.lastMailId = lastMailId;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public void setLastActivityAt(LocalDateTime lastActivityAt) {
+        this.lastActivityAt = lastActivityAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.emailapp.emailservice.dto.response;
+
+import java.util.List;
+
+public class UserImportResponse {
+
+    private int requested;
+    private int imported;
+    private int skipped;
+    private List<String> errors;  // One line per rejected row: "row <index>: <reason>"
+
+    // Constructors
+    public UserImportResponse() {
+    }
+
+    public UserImportResponse(int requested, int imported, int skipped, List<String> errors) {
+        this.requested = requested;
+        this.imported = imported;
+        this.skipped = skipped;
+        this.errors = errors;
+    }
+
+    // Getters and Setters
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,26 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// One stored file in the content-addressed attachment store, shared by every attachment with
+// the same SHA-256. refCount is the number of mail_attachments rows pointing at it.
+@Entity
+@Table(name = "attachment_blobs")
+@Data
+public class AttachmentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,6 @@
+package com.emailapp.emailservice.entity;
+
+public enum BodyEncoding {
+    PLAIN,
+    GZIP
+}
@@ -0,0 +1,62 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Delivery of one mail to a distribution list, done in chunks. lastUserId is the keyset cursor
+// over the list's members; it advances in the same transaction as the chunk's mailbox rows.
+@Entity
+@Table(name = "broadcast_jobs", indexes = {
+        @Index(name = "idx_broadcast_jobs_status", columnList = "status, id")
+})
+@Data
+public class BroadcastJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "list_id", nullable = false)
+    private Long listId;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(name = "mail_id", nullable = false)
+    private Long mailId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BroadcastStatus status = BroadcastStatus.PENDING;
+
+    // Members when the broadcast started; members added meanwhile may still be reached
+    @Column(name = "total_recipients", nullable = false)
+    private Integer totalRecipients;
+
+    @Column(name = "delivered_count", nullable = false)
+    private Integer deliveredCount = 0;
+
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId = 0L;
+
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.emailapp.emailservice.entity;
+
+public enum BroadcastStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,40 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+// A named group of users that can be mailed as one address; only its owner manages and mails it
+@Entity
+@Table(name = "distribution_lists", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_distribution_lists_owner_name", columnNames = {"owner_id", "name"})
+})
+@Data
+public class DistributionList {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long listId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User owner;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
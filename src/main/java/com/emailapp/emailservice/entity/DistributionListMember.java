@@ -0,0 +1,40 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+// The unique (list_id, user_id) index also serves the broadcast's keyset walk over a list's members
+@Entity
+@Table(name = "distribution_list_members", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_distribution_list_members", columnNames = {"list_id", "user_id"})
+})
+@Data
+public class DistributionListMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "list_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private DistributionList list;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
+
+    @Column(name = "added_at")
+    private LocalDateTime addedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        addedAt = LocalDateTime.now();
+    }
+}
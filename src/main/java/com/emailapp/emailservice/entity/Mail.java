@@ -2,12 +2,16 @@ package com.emailapp.emailservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "mails")
+@Table(name = "mails", indexes = {
+        @Index(name = "idx_mails_thread", columnList = "thread_id, sent_at")
+})
 @Data
 public class Mail {
 
@@ -22,8 +26,12 @@ public class Mail {
     @Column(nullable = false)
     private String subject;
 
-    @Column(columnDefinition = "TEXT")
-    private String content;
+    // Body lives in mail_bodies and is only fetched when the content is actually needed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private MailBody body;
 
     private String mailType = "NORMAL";
 
@@ -32,6 +40,14 @@ public class Mail {
 
     private Boolean hasAttachments = false;
 
+    // The conversation this mail belongs to (see MailThread); null only for mails not yet backfilled
+    @Column(name = "thread_id")
+    private Long threadId;
+
+    // The mail this one replies to
+    @Column(name = "in_reply_to")
+    private Long inReplyTo;
+
     @OneToMany(mappedBy = "mail", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<UserMailbox> userMailboxes = new ArrayList<>();
 
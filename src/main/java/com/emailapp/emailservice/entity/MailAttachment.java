@@ -0,0 +1,51 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+// Attachment metadata. Uploaded first (mail is null until the mail that uses it is sent),
+// content lives in the attachment store under sha256.
+@Entity
+@Table(name = "mail_attachments", indexes = {
+        @Index(name = "idx_mail_attachments_mail", columnList = "mail_id"),
+        @Index(name = "idx_mail_attachments_pending", columnList = "uploader_id, created_at")
+})
+@Data
+public class MailAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "mail_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Mail mail;
+
+    @Column(name = "uploader_id", nullable = false)
+    private Long uploaderId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,40 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+
+// Mail content, stored apart from the mail headers and gzip-compressed above a size threshold
+// (see MailBodyCodec). Only the mail detail and AI paths load it. Identical content is stored
+// once: mails share a body by content hash, and refCount is the number of mails using it.
+@Entity
+@Table(name = "mail_bodies", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_mail_bodies_content_hash", columnNames = "content_hash")
+})
+@Data
+public class MailBody {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "body_id")
+    private Long bodyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BodyEncoding encoding;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    // Length of the decoded content in UTF-8 bytes
+    @Column(name = "original_size", nullable = false)
+    private Integer originalSize;
+
+    // SHA-256 of the UTF-8 content; null only for bodies migrated before dedup could hash them
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @ColumnDefault("1")
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 1;
+}
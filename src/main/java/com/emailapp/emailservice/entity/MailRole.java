@@ -2,5 +2,7 @@ package com.emailapp.emailservice.entity;
 
 public enum MailRole {
     SENDER,
-    RECIPIENT
+    RECIPIENT,
+    CC,
+    BCC
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// A conversation: the first mail and every reply to it share its threadId. Kept up to date
+// by ThreadSummaryService on each send, so thread listings never aggregate over messages.
+@Entity
+@Table(name = "mail_threads")
+@Data
+public class MailThread {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "thread_id")
+    private Long threadId;
+
+    // Subject of the mail that started the thread
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount = 0;
+
+    @Column(name = "last_mail_id")
+    private Long lastMailId;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    // Comma-separated emails of the senders and visible recipients, capped (see ThreadSummaryService)
+    @Column(length = 2000)
+    private String participants;
+}
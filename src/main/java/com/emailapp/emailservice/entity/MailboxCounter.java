@@ -0,0 +1,26 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "mailbox_counters", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_mailbox_counters_user_folder", columnNames = {"user_id", "folder"})
+})
+@Data
+public class MailboxCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MailFolder folder;
+
+    @Column(name = "unread_count", nullable = false)
+    private Long unreadCount = 0L;
+}
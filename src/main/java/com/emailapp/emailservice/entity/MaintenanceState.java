@@ -0,0 +1,29 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a background maintenance job, shared by all instances: where the job continues
+ * and when it last got through everything. The row is locked while an instance works on it.
+ */
+@Entity
+@Table(name = "maintenance_state")
+@Data
+public class MaintenanceState {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    // Job-specific: the last user ID reconciled, the last cutoff archived, ...
+    @Column(nullable = false)
+    private Long position = 0L;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Job-specific point in time: everything received before it is archived, ...
+    private LocalDateTime mark;
+}
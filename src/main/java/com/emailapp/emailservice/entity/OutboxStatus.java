@@ -0,0 +1,8 @@
+package com.emailapp.emailservice.entity;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    DELIVERED,
+    FAILED
+}
@@ -7,13 +7,17 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_mailbox", indexes = {
         @Index(name = "idx_user_folder", columnList = "user_id, folder"),
-        @Index(name = "idx_mail_id", columnList = "mail_id")
+        @Index(name = "idx_mail_id", columnList = "mail_id"),
+        @Index(name = "idx_user_folder_received", columnList = "user_id, folder, received_at, id")
 })
 @Data
 public class UserMailbox {
 
+    // Sequence ids (pooled-lo, blocks of 50) let Hibernate batch the per-recipient inserts,
+    // which IDENTITY columns cannot do
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_mailbox_seq")
+    @SequenceGenerator(name = "user_mailbox_seq", sequenceName = "user_mailbox_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -46,6 +50,10 @@ public class UserMailbox {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // When the row last moved to trash; trash retention purges from this
+    @Column(name = "trashed_at")
+    private LocalDateTime trashedAt;
+
     @Column(name = "read_at")
     private LocalDateTime readAt;
 
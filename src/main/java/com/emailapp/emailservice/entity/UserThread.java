@@ -0,0 +1,39 @@
+package com.emailapp.emailservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// One user's view of a thread: counts over their live mailbox rows in it. The listing index
+// serves the keyset-paginated thread list directly.
+@Entity
+@Table(name = "user_threads", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_user_threads_user_thread", columnNames = {"user_id", "thread_id"})
+}, indexes = {
+        @Index(name = "idx_user_threads_activity", columnList = "user_id, last_activity_at, id")
+})
+@Data
+public class UserThread {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "thread_id", nullable = false)
+    private Long threadId;
+
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount = 0;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount = 0;
+
+    @Column(name = "last_mail_id")
+    private Long lastMailId;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+}
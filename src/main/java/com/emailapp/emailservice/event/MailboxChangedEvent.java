@@ -0,0 +1,52 @@
+package com.emailapp.emailservice.event;
+
+import com.emailapp.emailservice.dto.response.MailResponse;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by MailService when mailbox rows change. Listeners that push to clients
+ * should only act after the surrounding transaction commits.
+ */
+public class MailboxChangedEvent {
+
+    public enum Type {
+        MAIL_RECEIVED,
+        MAIL_READ,
+        MAIL_DELETED,
+        MAILBOX_UPDATED
+    }
+
+    private final Type type;
+    private final Collection<Long> userIds;
+    private final List<Long> mailIds;
+    private final MailResponse mail;  // Only set for MAIL_RECEIVED
+
+    public MailboxChangedEvent(Type type, Collection<Long> userIds, List<Long> mailIds, MailResponse mail) {
+        this.type = type;
+        this.userIds = userIds;
+        this.mailIds = mailIds;
+        this.mail = mail;
+    }
+
+    public static MailboxChangedEvent forUser(Type type, Long userId, List<Long> mailIds) {
+        return new MailboxChangedEvent(type, List.of(userId), mailIds, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Collection<Long> getUserIds() {
+        return userIds;
+    }
+
+    public List<Long> getMailIds() {
+        return mailIds;
+    }
+
+    public MailResponse getMail() {
+        return mail;
+    }
+}
@@ -0,0 +1,31 @@
+package com.emailapp.emailservice.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by UserService when users are created or changed. Caches keyed by username or
+ * email drop their entries once the surrounding transaction commits.
+ */
+public class UserChangedEvent {
+
+    private final Collection<String> usernames;
+    private final Collection<String> emails;
+
+    public UserChangedEvent(Collection<String> usernames, Collection<String> emails) {
+        this.usernames = usernames;
+        this.emails = emails;
+    }
+
+    public static UserChangedEvent forUser(String username, String email) {
+        return new UserChangedEvent(List.of(username), List.of(email));
+    }
+
+    public Collection<String> getUsernames() {
+        return usernames;
+    }
+
+    public Collection<String> getEmails() {
+        return emails;
+    }
+}
@@ -0,0 +1,34 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.AttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    // Upsert: first reference creates the row, later identical uploads only bump the count
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (sha256, size_bytes, ref_count, created_at) " +
+            "VALUES (:sha256, :sizeBytes, 1, now()) " +
+            "ON CONFLICT (sha256) DO UPDATE SET ref_count = attachment_blobs.ref_count + 1",
+            nativeQuery = true)
+    int addReference(@Param("sha256") String sha256, @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.refCount = b.refCount - :count WHERE b.sha256 = :sha256")
+    int releaseReferences(@Param("sha256") String sha256, @Param("count") int count);
+
+    @Query("SELECT b.sha256 FROM AttachmentBlob b WHERE b.sha256 IN :sha256s AND b.refCount <= 0")
+    List<String> findUnreferenced(@Param("sha256s") Collection<String> sha256s);
+
+    @Modifying
+    @Query("DELETE FROM AttachmentBlob b WHERE b.sha256 IN :sha256s AND b.refCount <= 0")
+    int deleteUnreferenced(@Param("sha256s") Collection<String> sha256s);
+}
@@ -0,0 +1,28 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.BroadcastJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BroadcastJobRepository extends JpaRepository<BroadcastJob, Long> {
+
+    @Query("SELECT j.id FROM BroadcastJob j WHERE j.status IN ('PENDING', 'RUNNING') ORDER BY j.id")
+    List<Long> findActiveIds();
+
+    // Of these mails, the ones a broadcast is still delivering
+    @Query("SELECT j.mailId FROM BroadcastJob j WHERE j.mailId IN :mailIds AND j.status IN ('PENDING', 'RUNNING')")
+    List<Long> findActiveMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    // Another instance holding the job skips it rather than waiting for its chunk to commit
+    @Query(value = "SELECT * FROM broadcast_jobs WHERE id = :id " +
+            "AND status IN ('PENDING', 'RUNNING') FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<BroadcastJob> lockActive(@Param("id") Long id);
+}
@@ -0,0 +1,45 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.DistributionListMember;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DistributionListMemberRepository extends JpaRepository<DistributionListMember, Long> {
+
+    // One statement for the whole batch; unknown emails and existing members are skipped
+    @Modifying
+    @Query(value = "INSERT INTO distribution_list_members (list_id, user_id, added_at) " +
+            "SELECT :listId, u.user_id, now() FROM users u WHERE u.email IN :emails " +
+            "ON CONFLICT (list_id, user_id) DO NOTHING",
+            nativeQuery = true)
+    int addByEmails(@Param("listId") Long listId, @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query("DELETE FROM DistributionListMember m WHERE m.list.listId = :listId " +
+            "AND m.user.userId IN (SELECT u.userId FROM User u WHERE u.email IN :emails)")
+    int removeByEmails(@Param("listId") Long listId, @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query("DELETE FROM DistributionListMember m WHERE m.list.listId = :listId")
+    int deleteByListId(@Param("listId") Long listId);
+
+    @Query("SELECT COUNT(m) FROM DistributionListMember m WHERE m.list.listId = :listId")
+    long countByListId(@Param("listId") Long listId);
+
+    // Keyset walk over the members in user ID order: each chunk is an index range scan
+    @Query("SELECT m.user.userId FROM DistributionListMember m " +
+            "WHERE m.list.listId = :listId AND m.user.userId > :afterUserId ORDER BY m.user.userId")
+    List<Long> findMemberIdsAfter(
+            @Param("listId") Long listId,
+            @Param("afterUserId") Long afterUserId,
+            Pageable pageable
+    );
+}
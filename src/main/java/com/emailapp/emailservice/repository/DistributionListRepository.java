@@ -0,0 +1,22 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.DistributionList;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DistributionListRepository extends JpaRepository<DistributionList, Long> {
+
+    @Query("SELECT l FROM DistributionList l WHERE l.owner.userId = :ownerId ORDER BY l.name")
+    List<DistributionList> findByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT l FROM DistributionList l WHERE l.listId = :listId AND l.owner.userId = :ownerId")
+    Optional<DistributionList> findOwned(@Param("listId") Long listId, @Param("ownerId") Long ownerId);
+
+    boolean existsByOwnerUserIdAndName(Long ownerId, String name);
+}
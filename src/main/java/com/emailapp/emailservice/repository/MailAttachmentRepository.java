@@ -0,0 +1,46 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.Mail;
+import com.emailapp.emailservice.entity.MailAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailAttachmentRepository extends JpaRepository<MailAttachment, Long> {
+
+    @Query("SELECT a FROM MailAttachment a WHERE a.mail.mailId = :mailId ORDER BY a.id")
+    List<MailAttachment> findByMailId(@Param("mailId") Long mailId);
+
+    // Links the sender's own, still unattached uploads to a mail; returns how many were linked
+    @Modifying
+    @Query("UPDATE MailAttachment a SET a.mail = :mail " +
+            "WHERE a.id IN :attachmentIds AND a.uploaderId = :uploaderId AND a.mail IS NULL")
+    int attachToMail(
+            @Param("mail") Mail mail,
+            @Param("uploaderId") Long uploaderId,
+            @Param("attachmentIds") Collection<Long> attachmentIds
+    );
+
+    // Whether the user can see the attachment: a live mailbox row for its mail, or their own pending upload
+    @Query("SELECT COUNT(a) > 0 FROM MailAttachment a WHERE a.id = :attachmentId AND (" +
+            "(a.mail IS NULL AND a.uploaderId = :userId) OR EXISTS (" +
+            "SELECT 1 FROM UserMailbox um WHERE um.mail = a.mail AND um.user.userId = :userId AND um.isDeleted = false))")
+    boolean isVisibleTo(@Param("attachmentId") Long attachmentId, @Param("userId") Long userId);
+
+    @Query("SELECT a.sha256 FROM MailAttachment a WHERE a.mail.mailId IN :mailIds")
+    List<String> findSha256ByMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    @Modifying
+    @Query("DELETE FROM MailAttachment a WHERE a.mail.mailId IN :mailIds")
+    int deleteByMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    @Query("SELECT a FROM MailAttachment a WHERE a.mail IS NULL AND a.createdAt < :before")
+    List<MailAttachment> findAbandoned(@Param("before") LocalDateTime before);
+}
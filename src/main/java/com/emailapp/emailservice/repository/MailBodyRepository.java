@@ -0,0 +1,52 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.BodyEncoding;
+import com.emailapp.emailservice.entity.MailBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MailBodyRepository extends JpaRepository<MailBody, Long> {
+
+    @Query("SELECT b FROM Mail m JOIN m.body b WHERE m.mailId = :mailId")
+    Optional<MailBody> findByMailId(@Param("mailId") Long mailId);
+
+    // [mailId, MailBody] for the given mails
+    @Query("SELECT m.mailId, b FROM Mail m JOIN m.body b WHERE m.mailId IN :mailIds")
+    List<Object[]> findByMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    // Bodies of the given mails still stored in the given encoding
+    @Query("SELECT b FROM MailBody b WHERE b.encoding = :encoding " +
+            "AND b.bodyId IN (SELECT m.body.bodyId FROM Mail m WHERE m.mailId IN :mailIds)")
+    List<MailBody> findByMailIdsAndEncoding(
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("encoding") BodyEncoding encoding
+    );
+
+    // Rewrites only the stored form, so concurrent reference count changes are not lost
+    @Modifying
+    @Query("UPDATE MailBody b SET b.encoding = :encoding, b.data = :data " +
+            "WHERE b.bodyId = :bodyId AND b.encoding = :previousEncoding")
+    int reencode(
+            @Param("bodyId") Long bodyId,
+            @Param("previousEncoding") BodyEncoding previousEncoding,
+            @Param("encoding") BodyEncoding encoding,
+            @Param("data") byte[] data
+    );
+
+    @Modifying
+    @Query("UPDATE MailBody b SET b.refCount = b.refCount - :count WHERE b.bodyId = :bodyId")
+    int releaseReferences(@Param("bodyId") Long bodyId, @Param("count") int count);
+
+    // Bodies among the given ones that no mail uses any more
+    @Modifying
+    @Query("DELETE FROM MailBody b WHERE b.bodyId IN :bodyIds AND b.refCount <= 0")
+    int deleteUnreferenced(@Param("bodyIds") Collection<Long> bodyIds);
+}
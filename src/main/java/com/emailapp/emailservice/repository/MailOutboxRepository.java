@@ -0,0 +1,57 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.MailOutbox;
+import com.emailapp.emailservice.entity.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Due records, plus PROCESSING ones whose worker died. SKIP LOCKED lets several
+    // instances drain the outbox without handing out the same record twice.
+    @Query(value = "SELECT id FROM mail_outbox " +
+            "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+            "OR (status = 'PROCESSING' AND locked_at < :staleBefore) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDeliverableIds(
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("limit") int limit
+    );
+
+    // SELECT ... FOR UPDATE: one worker at a time decides what happens to a record
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM MailOutbox o WHERE o.id = :id")
+    Optional<MailOutbox> lockById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE MailOutbox o SET o.status = :status, o.lockedAt = :lockedAt WHERE o.id IN :ids")
+    int markClaimed(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") OutboxStatus status,
+            @Param("lockedAt") LocalDateTime lockedAt
+    );
+
+    // Moves records still held under the given claim to another status, without counting an attempt
+    @Modifying
+    @Query("UPDATE MailOutbox o SET o.status = :status, o.lockedAt = null " +
+            "WHERE o.id IN :ids AND o.status = :claimedStatus AND o.lockedAt = :lockedAt")
+    int releaseClaimed(
+            @Param("ids") Collection<Long> ids,
+            @Param("claimedStatus") OutboxStatus claimedStatus,
+            @Param("lockedAt") LocalDateTime lockedAt,
+            @Param("status") OutboxStatus status
+    );
+}
@@ -1,13 +1,38 @@
 package com.emailapp.emailservice.repository;
 
 import com.emailapp.emailservice.entity.Mail;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MailRepository extends JpaRepository<Mail, Long> {
 
     List<Mail> findBySenderUserId(Long senderId);
     Mail findMailByMailId(Long mailId);
+
+    @Query("SELECT m.body.bodyId FROM Mail m WHERE m.mailId IN :mailIds AND m.body IS NOT NULL")
+    List<Long> findBodyIds(@Param("mailIds") Collection<Long> mailIds);
+
+    @Query("SELECT DISTINCT m.threadId FROM Mail m WHERE m.mailId IN :mailIds AND m.threadId IS NOT NULL")
+    List<Long> findThreadIds(@Param("mailIds") Collection<Long> mailIds);
+
+    @Query("SELECT m.threadId FROM Mail m WHERE m.mailId = :mailId")
+    Optional<Long> findThreadId(@Param("mailId") Long mailId);
+
+    // Serializes collectors purging the same mails; mails already purged are simply absent
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.mailId FROM Mail m WHERE m.mailId IN :mailIds")
+    List<Long> lockByMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    @Modifying
+    @Query("DELETE FROM Mail m WHERE m.mailId IN :mailIds")
+    int deleteByMailIds(@Param("mailIds") Collection<Long> mailIds);
 }
\ No newline at end of file
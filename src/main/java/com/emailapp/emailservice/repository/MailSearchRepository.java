@@ -0,0 +1,88 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.entity.MailFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full-text index over mail subject and content, stored as a weighted tsvector column on
+ * mails with a GIN index (see SchemaInitializer). PostgreSQL only.
+ */
+@Repository
+public class MailSearchRepository {
+
+    // Subject matches rank above body matches
+    private static final String VECTOR_EXPRESSION =
+            "setweight(to_tsvector(CAST(? AS regconfig), coalesce(?, '')), 'A') || " +
+            "setweight(to_tsvector(CAST(? AS regconfig), coalesce(?, '')), 'B')";
+
+    private static final RowMapper<MailResponse> HIT_MAPPER = (rs, rowNum) -> new MailResponse(
+            rs.getLong("id"),
+            toLocalDateTime(rs.getTimestamp("received_at")),
+            rs.getLong("mail_id"),
+            rs.getString("subject"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getString("email"),
+            toLocalDateTime(rs.getTimestamp("sent_at")),
+            rs.getBoolean("is_read"),
+            rs.getBoolean("is_starred"),
+            MailFolder.valueOf(rs.getString("folder")),
+            rs.getBoolean("has_attachments"),
+            rs.getObject("thread_id", Long.class)
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${mail.search.language:english}")
+    private String language;
+
+    // Called at delivery time, inside the sending transaction
+    public void index(Long mailId, String subject, String content) {
+        jdbcTemplate.update(
+                "UPDATE mails SET search_vector = " + VECTOR_EXPRESSION + " WHERE mail_id = ?",
+                language, subject, language, content, mailId);
+    }
+
+    // Ranked hits restricted to the user's own live mailbox rows
+    public List<MailResponse> search(Long userId, String query, int limit, int offset) {
+        return jdbcTemplate.query(
+                "SELECT um.id, um.received_at, um.is_read, um.is_starred, um.folder, " +
+                "m.mail_id, m.subject, m.sent_at, m.has_attachments, m.thread_id, s.first_name, s.last_name, s.email " +
+                "FROM user_mailbox um " +
+                "JOIN mails m ON m.mail_id = um.mail_id " +
+                "JOIN users s ON s.user_id = m.sender_id " +
+                "CROSS JOIN websearch_to_tsquery(CAST(? AS regconfig), ?) q " +
+                "WHERE um.user_id = ? AND um.is_deleted = false AND m.search_vector @@ q " +
+                "ORDER BY ts_rank_cd(m.search_vector, q) DESC, um.received_at DESC, um.id DESC " +
+                "LIMIT ? OFFSET ?",
+                HIT_MAPPER,
+                language, query, userId, limit, offset);
+    }
+
+    // Indexes up to batchSize mails that predate the search column; returns how many were done.
+    // Such mails carry migrated, uncompressed bodies (newer mails are indexed when sent).
+    public int backfill(int batchSize) {
+        return jdbcTemplate.update(
+                "UPDATE mails m SET search_vector = " +
+                "setweight(to_tsvector(CAST(? AS regconfig), coalesce(m.subject, '')), 'A') || " +
+                "setweight(to_tsvector(CAST(? AS regconfig), coalesce(" +
+                "(SELECT convert_from(b.data, 'UTF8') FROM mail_bodies b " +
+                "WHERE b.body_id = m.body_id AND b.encoding = 'PLAIN'), '')), 'B') " +
+                "WHERE m.mail_id IN (SELECT mail_id FROM mails WHERE search_vector IS NULL LIMIT ?)",
+                language, language, batchSize);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.MailThread;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface MailThreadRepository extends JpaRepository<MailThread, Long> {
+
+    // Concurrent replies to one thread update its summary one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM MailThread t WHERE t.threadId = :threadId")
+    Optional<MailThread> findForUpdate(@Param("threadId") Long threadId);
+
+    // Threads among the given ones that no longer have any mail
+    @Modifying
+    @Query("DELETE FROM MailThread t WHERE t.threadId IN :threadIds " +
+            "AND NOT EXISTS (SELECT 1 FROM Mail m WHERE m.threadId = t.threadId)")
+    int deleteEmpty(@Param("threadIds") Collection<Long> threadIds);
+}
@@ -0,0 +1,61 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.MailboxCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailboxCounterRepository extends JpaRepository<MailboxCounter, Long> {
+
+    @Query("SELECT COALESCE(SUM(c.unreadCount), 0) FROM MailboxCounter c WHERE c.userId = :userId")
+    Long sumUnreadByUserId(@Param("userId") Long userId);
+
+    // Upsert: creates the counter row on first use, never lets it go below zero
+    @Modifying
+    @Query(value = "INSERT INTO mailbox_counters (user_id, folder, unread_count) " +
+            "SELECT u.user_id, :folder, GREATEST(:delta, 0) FROM users u WHERE u.user_id IN (:userIds) " +
+            "ON CONFLICT (user_id, folder) DO UPDATE " +
+            "SET unread_count = GREATEST(mailbox_counters.unread_count + :delta, 0)",
+            nativeQuery = true)
+    int adjustUnread(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("folder") String folder,
+            @Param("delta") long delta
+    );
+
+    // Reconciliation works through users in ID order, a batch at a time
+    @Query(value = "SELECT user_id FROM users WHERE user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findUserIdsAfter(@Param("afterUserId") Long afterUserId, @Param("limit") int limit);
+
+    // Holds back the batch's counter updates until its recount commits: an update that comes
+    // after the lock applies its delta on top of the recount, one that came before is in it
+    @Query(value = "SELECT id FROM mailbox_counters WHERE user_id IN (:userIds) ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Rewrites the batch's counters that disagree with user_mailbox
+    @Modifying
+    @Query(value = "INSERT INTO mailbox_counters (user_id, folder, unread_count) " +
+            "SELECT um.user_id, um.folder, COUNT(*) FROM user_mailbox um " +
+            "WHERE um.user_id IN (:userIds) AND um.is_read = false AND um.is_deleted = false " +
+            "GROUP BY um.user_id, um.folder " +
+            "ON CONFLICT (user_id, folder) DO UPDATE SET unread_count = EXCLUDED.unread_count " +
+            "WHERE mailbox_counters.unread_count <> EXCLUDED.unread_count",
+            nativeQuery = true)
+    int reconcileUnreadCounts(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query(value = "UPDATE mailbox_counters c SET unread_count = 0 " +
+            "WHERE c.user_id IN (:userIds) AND c.unread_count <> 0 AND NOT EXISTS (" +
+            "SELECT 1 FROM user_mailbox um WHERE um.user_id = c.user_id AND um.folder = c.folder " +
+            "AND um.is_read = false AND um.is_deleted = false)",
+            nativeQuery = true)
+    int resetStaleUnreadCounts(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,24 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.MaintenanceState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MaintenanceStateRepository extends JpaRepository<MaintenanceState, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO maintenance_state (name, position) VALUES (:name, 0) ON CONFLICT (name) DO NOTHING",
+            nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    // Empty while another instance holds the row, instead of waiting for it
+    @Query(value = "SELECT * FROM maintenance_state WHERE name = :name FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<MaintenanceState> lockIfFree(@Param("name") String name);
+}
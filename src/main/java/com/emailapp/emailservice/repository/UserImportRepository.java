@@ -0,0 +1,58 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Batched user inserts for bulk import. A whole batch is one INSERT ... SELECT FROM unnest(...)
+ * over column arrays, so it costs one round trip however many rows it carries. Rows whose
+ * username or email already exists are skipped by the database, and RETURNING reports exactly
+ * which usernames went in. PostgreSQL only.
+ */
+@Repository
+public class UserImportRepository {
+
+    private static final String INSERT_USERS =
+            "INSERT INTO users (first_name, last_name, email, username, password, gender, created_at, updated_at) " +
+            "SELECT t.first_name, t.last_name, t.email, t.username, t.password, t.gender, ?, ? " +
+            "FROM unnest(CAST(? AS varchar[]), CAST(? AS varchar[]), CAST(? AS varchar[]), " +
+            "CAST(? AS varchar[]), CAST(? AS varchar[]), CAST(? AS varchar[])) " +
+            "AS t(first_name, last_name, email, username, password, gender) " +
+            "ON CONFLICT DO NOTHING RETURNING username";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Returns the usernames that were actually inserted
+    public List<String> insertBatch(List<User> users) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_USERS);
+            ps.setTimestamp(1, now);
+            ps.setTimestamp(2, now);
+            ps.setArray(3, column(connection, users, User::getFirstName));
+            ps.setArray(4, column(connection, users, User::getLastName));
+            ps.setArray(5, column(connection, users, User::getEmail));
+            ps.setArray(6, column(connection, users, User::getUsername));
+            ps.setArray(7, column(connection, users, User::getPassword));
+            ps.setArray(8, column(connection, users, User::getGender));
+            return ps;
+        }, (rs, rowNum) -> rs.getString("username"));
+    }
+
+    private static Array column(Connection connection, List<User> users, Function<User, String> getter)
+            throws SQLException {
+        return connection.createArrayOf("varchar", users.stream().map(getter).toArray());
+    }
+}
@@ -0,0 +1,122 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.entity.MailRole;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes unread mailbox rows for many recipients of one mail at once. On PostgreSQL a chunk is a
+ * single COPY; other databases get one JDBC batch. Runs in the caller's transaction.
+ *
+ * IDs come from user_mailbox_seq like the entity's: under the pooled-lo optimizer each nextval
+ * reserves [value, value + ID_BLOCK_SIZE), so these rows never collide with Hibernate's.
+ */
+@Repository
+public class UserMailboxBulkRepository {
+
+    // Must match allocationSize on UserMailbox.id
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String COPY_MAILBOXES =
+            "COPY user_mailbox (id, user_id, mail_id, mail_role, folder, is_read, is_starred, " +
+            "is_deleted, is_archived, received_at) FROM STDIN";
+
+    private static final String INSERT_MAILBOX =
+            "INSERT INTO user_mailbox (id, user_id, mail_id, mail_role, folder, is_read, is_starred, " +
+            "is_deleted, is_archived, received_at) VALUES (?, ?, ?, ?, ?, false, false, false, false, ?)";
+
+    private static final DateTimeFormatter COPY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Returns the number of rows written
+    public int insertUnread(Long mailId, List<Long> userIds, MailRole role, MailFolder folder, LocalDateTime receivedAt) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            List<Long> ids = allocateIds(connection, userIds.size());
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return copy(connection.unwrap(PGConnection.class), ids, mailId, userIds, role, folder, receivedAt);
+            }
+            return batch(connection, ids, mailId, userIds, role, folder, receivedAt);
+        });
+    }
+
+    private List<Long> allocateIds(Connection connection, int count) throws SQLException {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> blockStarts;
+        if (connection.isWrapperFor(PGConnection.class)) {
+            // All blocks in one round trip
+            blockStarts = jdbcTemplate.query("SELECT nextval('user_mailbox_seq') FROM generate_series(1, ?)",
+                    SingleColumnRowMapper.newInstance(Long.class), blocks);
+        } else {
+            blockStarts = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                blockStarts.add(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR user_mailbox_seq", Long.class));
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(count);
+        for (Long start : blockStarts) {
+            for (int i = 0; i < ID_BLOCK_SIZE && ids.size() < count; i++) {
+                ids.add(start + i);
+            }
+        }
+        return ids;
+    }
+
+    private int copy(PGConnection connection, List<Long> ids, Long mailId, List<Long> userIds,
+                     MailRole role, MailFolder folder, LocalDateTime receivedAt) throws SQLException {
+        String suffix = "\t" + mailId + "\t" + role.name() + "\t" + folder.name() +
+                "\tf\tf\tf\tf\t" + COPY_TIMESTAMP.format(receivedAt) + "\n";
+        StringBuilder rows = new StringBuilder(userIds.size() * (suffix.length() + 24));
+        for (int i = 0; i < userIds.size(); i++) {
+            rows.append(ids.get(i)).append('\t').append(userIds.get(i)).append(suffix);
+        }
+        try {
+            return (int) connection.getCopyAPI().copyIn(COPY_MAILBOXES, new StringReader(rows.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int batch(Connection connection, List<Long> ids, Long mailId, List<Long> userIds,
+                      MailRole role, MailFolder folder, LocalDateTime receivedAt) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_MAILBOX)) {
+            Timestamp timestamp = Timestamp.valueOf(receivedAt);
+            for (int i = 0; i < userIds.size(); i++) {
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, userIds.get(i));
+                ps.setLong(3, mailId);
+                ps.setString(4, role.name());
+                ps.setString(5, folder.name());
+                ps.setTimestamp(6, timestamp);
+                ps.addBatch();
+            }
+            int written = 0;
+            for (int count : ps.executeBatch()) {
+                written += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+            }
+            return written;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.emailapp.emailservice.repository;
 
+import com.emailapp.emailservice.dto.response.MailResponse;
 import com.emailapp.emailservice.entity.UserMailbox;
 import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.entity.MailRole;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,14 +25,215 @@ public interface UserMailboxRepository extends JpaRepository<UserMailbox, Long>
             MailFolder folder
     );
 
+    // Listing rows are projected straight into MailResponse so a page is one SQL statement,
+    // instead of one select per eager Mail / sender association. Bodies are never read here.
+    String MAIL_ROW_SELECT = "SELECT new com.emailapp.emailservice.dto.response.MailResponse(" +
+            "um.id, um.receivedAt, m.mailId, m.subject, " +
+            "s.firstName, s.lastName, s.email, m.sentAt, um.isRead, um.isStarred, um.folder, m.hasAttachments, m.threadId) " +
+            "FROM UserMailbox um JOIN um.mail m JOIN m.sender s ";
+
+    // receivedSince bounds the scan to recent partitions for folders that are archived (MailArchiveService)
+    String FOLDER_PAGE_SELECT = MAIL_ROW_SELECT +
+            "WHERE um.user.userId = :userId AND um.folder = :folder AND um.isDeleted = false " +
+            "AND um.receivedAt >= :receivedSince ";
+
+    // The user's live rows for one mail (two when a user mailed themselves: SENT and INBOX)
+    @Query(MAIL_ROW_SELECT +
+            "WHERE um.user.userId = :userId AND m.mailId = :mailId AND um.isDeleted = false " +
+            "ORDER BY um.id")
+    List<MailResponse> findMailRows(
+            @Param("userId") Long userId,
+            @Param("mailId") Long mailId
+    );
+
+    // The user's live rows in one thread, oldest first
+    @Query(MAIL_ROW_SELECT +
+            "WHERE um.user.userId = :userId AND m.threadId = :threadId AND um.isDeleted = false " +
+            "ORDER BY m.sentAt, um.id")
+    List<MailResponse> findThreadRows(
+            @Param("userId") Long userId,
+            @Param("threadId") Long threadId
+    );
+
+    // [email, role] of a mail's recipients in the given roles, except excludedUserId (may be null)
+    @Query("SELECT u.email, um.mailRole FROM UserMailbox um JOIN um.user u " +
+            "WHERE um.mail.mailId = :mailId AND um.mailRole IN :roles " +
+            "AND (:excludedUserId IS NULL OR u.userId <> :excludedUserId) ORDER BY um.id")
+    List<Object[]> findRecipientEmails(
+            @Param("mailId") Long mailId,
+            @Param("excludedUserId") Long excludedUserId,
+            @Param("roles") Collection<MailRole> roles
+    );
+
+    // Those of the given mails that are visible in the user's mailbox
+    @Query("SELECT DISTINCT m.mailId FROM UserMailbox um JOIN um.mail m " +
+            "WHERE um.user.userId = :userId AND um.isDeleted = false AND m.mailId IN :mailIds")
+    List<Long> findVisibleMailIds(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds
+    );
+
+    // First page of a folder, newest first
+    @Query(FOLDER_PAGE_SELECT +
+            "ORDER BY um.receivedAt DESC, um.id DESC")
+    List<MailResponse> findFolderPage(
+            @Param("userId") Long userId,
+            @Param("folder") MailFolder folder,
+            @Param("receivedSince") LocalDateTime receivedSince,
+            Pageable pageable
+    );
+
+    // Next page of a folder, strictly after the (receivedAt, id) cursor
+    @Query(FOLDER_PAGE_SELECT +
+            "AND (um.receivedAt < :receivedAt OR (um.receivedAt = :receivedAt AND um.id < :id)) " +
+            "ORDER BY um.receivedAt DESC, um.id DESC")
+    List<MailResponse> findFolderPageAfter(
+            @Param("userId") Long userId,
+            @Param("folder") MailFolder folder,
+            @Param("receivedSince") LocalDateTime receivedSince,
+            @Param("receivedAt") LocalDateTime receivedAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
     Optional<UserMailbox> findByUserUserIdAndMailMailId(
             Long userId,
             Long mailId
     );
 
+    // SELECT ... FOR UPDATE: read-state and folder changes to a row happen one at a time, so
+    // each one adjusts the counters from the row's current state
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT um FROM UserMailbox um WHERE um.user.userId = :userId AND um.mail.mailId = :mailId")
+    Optional<UserMailbox> lockByUserAndMail(@Param("userId") Long userId, @Param("mailId") Long mailId);
+
+    // Same, for a bulk action's rows, locked in ID order. Only the IDs are read: loading the rows
+    // would fetch each one's mail and sender too
+    @Query(value = "SELECT um.id FROM user_mailbox um WHERE um.user_id = :userId AND um.mail_id IN (:mailIds) " +
+            "ORDER BY um.id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByUserAndMails(@Param("userId") Long userId, @Param("mailIds") Collection<Long> mailIds);
+
     List<UserMailbox> findByMailMailId(Long mailId);
 
     List<UserMailbox> findByUserUserIdAndIsReadFalseAndIsDeletedFalse(Long userId);
 
     Long countByUserUserIdAndFolderAndIsDeletedFalse(Long userId, MailFolder folder);
+
+    // ---- Set-based bulk operations, all scoped to one user's live mailbox rows ----
+
+    // [folder, count] of the rows a read-state change would flip, for counter maintenance
+    @Query("SELECT um.folder, COUNT(um) FROM UserMailbox um " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.isRead = :isRead " +
+            "GROUP BY um.folder")
+    List<Object[]> countByFolderAndReadState(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("isRead") Boolean isRead
+    );
+
+    // [threadId, count] of the rows a read-state change would flip, for thread summaries
+    @Query("SELECT um.mail.threadId, COUNT(um) FROM UserMailbox um " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.isRead = :isRead AND um.mail.threadId IS NOT NULL " +
+            "GROUP BY um.mail.threadId")
+    List<Object[]> countByThreadAndReadState(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("isRead") Boolean isRead
+    );
+
+    // [threadId, rows, unread rows] of the live rows in a folder, i.e. what a purge of it removes
+    @Query("SELECT um.mail.threadId, COUNT(um), SUM(CASE WHEN um.isRead = false THEN 1 ELSE 0 END) " +
+            "FROM UserMailbox um " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.folder = :folder AND um.mail.threadId IS NOT NULL " +
+            "GROUP BY um.mail.threadId")
+    List<Object[]> countByThreadInFolder(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("folder") MailFolder folder
+    );
+
+    @Modifying
+    @Query("UPDATE UserMailbox um SET um.isRead = :isRead, um.readAt = :readAt " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.isRead <> :isRead")
+    int updateReadState(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("isRead") Boolean isRead,
+            @Param("readAt") LocalDateTime readAt
+    );
+
+    @Modifying
+    @Query("UPDATE UserMailbox um SET um.isStarred = :isStarred " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.isStarred <> :isStarred")
+    int updateStarred(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("isStarred") Boolean isStarred
+    );
+
+    // isArchived follows the folder: set moving into ARCHIVED, cleared moving out
+    @Modifying
+    @Query("UPDATE UserMailbox um SET um.folder = :folder, um.isArchived = :isArchived, um.trashedAt = :trashedAt " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.folder <> :folder")
+    int moveToFolder(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("folder") MailFolder folder,
+            @Param("isArchived") Boolean isArchived,
+            @Param("trashedAt") LocalDateTime trashedAt
+    );
+
+    // Permanent delete of the rows that are already in the given folder (trash)
+    @Modifying
+    @Query("UPDATE UserMailbox um SET um.isDeleted = true, um.deletedAt = :deletedAt " +
+            "WHERE um.user.userId = :userId AND um.mail.mailId IN :mailIds " +
+            "AND um.isDeleted = false AND um.folder = :folder")
+    int markDeletedInFolder(
+            @Param("userId") Long userId,
+            @Param("mailIds") Collection<Long> mailIds,
+            @Param("folder") MailFolder folder,
+            @Param("deletedAt") LocalDateTime deletedAt
+    );
+
+    // Next mails, by ID, with at least one permanently deleted row: candidates for the collector
+    @Query("SELECT DISTINCT um.mail.mailId FROM UserMailbox um " +
+            "WHERE um.isDeleted = true AND um.mail.mailId > :afterMailId ORDER BY um.mail.mailId")
+    List<Long> findDeletedMailIdsAfter(@Param("afterMailId") Long afterMailId, Pageable pageable);
+
+    // [id, userId, threadId, isRead] of live trash rows trashed before the cutoff, oldest first.
+    // Rows locked by another collector are skipped.
+    @Query(value = "SELECT um.id, um.user_id, m.thread_id, um.is_read FROM user_mailbox um " +
+            "JOIN mails m ON m.mail_id = um.mail_id " +
+            "WHERE um.folder = 'TRASH' AND um.is_deleted = false AND um.trashed_at < :cutoff " +
+            "ORDER BY um.trashed_at LIMIT :limit FOR UPDATE OF um SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockExpiredTrash(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE UserMailbox um SET um.isDeleted = true, um.deletedAt = :deletedAt WHERE um.id IN :ids")
+    int markDeletedByIds(@Param("ids") Collection<Long> ids, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Mails whose every mailbox row has been permanently deleted
+    @Query("SELECT um.mail.mailId FROM UserMailbox um WHERE um.mail.mailId IN :mailIds " +
+            "GROUP BY um.mail.mailId " +
+            "HAVING SUM(CASE WHEN um.isDeleted = false THEN 1 ELSE 0 END) = 0")
+    List<Long> findFullyDeletedMailIds(@Param("mailIds") Collection<Long> mailIds);
+
+    // Up to :limit rows deleted before the cutoff from mails someone still has. Rows locked by
+    // another collector are skipped.
+    @Modifying
+    @Query(value = "DELETE FROM user_mailbox WHERE id IN (" +
+            "  SELECT um.id FROM user_mailbox um WHERE um.is_deleted = true AND um.deleted_at < :cutoff " +
+            "  AND EXISTS (SELECT 1 FROM user_mailbox l WHERE l.mail_id = um.mail_id AND l.is_deleted = false) " +
+            "  ORDER BY um.deleted_at LIMIT :limit FOR UPDATE OF um SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredDeletedRows(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM UserMailbox um WHERE um.mail.mailId IN :mailIds")
+    int deleteByMailIds(@Param("mailIds") Collection<Long> mailIds);
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.emailapp.emailservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based changes to thread summaries, one statement however many users or threads they touch:
+ * per-row deltas travel as arrays through unnest. A new message is an upsert (ON CONFLICT turns
+ * the insert into an increment for users who already have the thread); read-state changes and
+ * removed rows update one user's threads together. PostgreSQL only.
+ */
+@Repository
+public class UserThreadBulkRepository {
+
+    private static final String UPSERT_USER_THREADS =
+            "INSERT INTO user_threads (user_id, thread_id, message_count, unread_count, last_mail_id, last_activity_at) " +
+            "SELECT t.user_id, ?, t.messages, t.unread, ?, ? " +
+            "FROM unnest(CAST(? AS bigint[]), CAST(? AS integer[]), CAST(? AS integer[])) AS t(user_id, messages, unread) " +
+            "ON CONFLICT (user_id, thread_id) DO UPDATE SET " +
+            "message_count = user_threads.message_count + EXCLUDED.message_count, " +
+            "unread_count = user_threads.unread_count + EXCLUDED.unread_count, " +
+            "last_mail_id = EXCLUDED.last_mail_id, " +
+            "last_activity_at = EXCLUDED.last_activity_at";
+
+    private static final String ADJUST_COUNTS =
+            "UPDATE user_threads ut SET message_count = ut.message_count + t.messages, " +
+            "unread_count = ut.unread_count + t.unread " +
+            "FROM unnest(CAST(? AS bigint[]), CAST(? AS integer[]), CAST(? AS integer[])) AS t(thread_id, messages, unread) " +
+            "WHERE ut.user_id = ? AND ut.thread_id = t.thread_id";
+
+    // Latest of the user's live rows per thread, found through the thread's mails
+    private static final String REFRESH_LAST_MAIL =
+            "UPDATE user_threads ut SET last_mail_id = l.mail_id, last_activity_at = l.activity_at " +
+            "FROM (SELECT DISTINCT ON (m.thread_id) m.thread_id, m.mail_id, " +
+            "coalesce(um.received_at, m.sent_at) AS activity_at " +
+            "FROM mails m JOIN user_mailbox um ON um.mail_id = m.mail_id " +
+            "WHERE m.thread_id = ANY (CAST(? AS bigint[])) AND um.user_id = ? AND um.is_deleted = false " +
+            "ORDER BY m.thread_id, coalesce(um.received_at, m.sent_at) DESC, m.mail_id DESC) l " +
+            "WHERE ut.user_id = ? AND ut.thread_id = l.thread_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // userIds, messages and unread are parallel lists: the new rows and unread rows each user got
+    public int recordMessage(Long threadId, Long mailId, LocalDateTime at,
+                             List<Long> userIds, List<Integer> messages, List<Integer> unread) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_USER_THREADS);
+            ps.setLong(1, threadId);
+            ps.setLong(2, mailId);
+            ps.setTimestamp(3, Timestamp.valueOf(at));
+            ps.setArray(4, connection.createArrayOf("bigint", userIds.toArray()));
+            ps.setArray(5, connection.createArrayOf("integer", messages.toArray()));
+            ps.setArray(6, connection.createArrayOf("integer", unread.toArray()));
+            return ps;
+        });
+    }
+
+    // threadIds, messages and unread are parallel lists: count deltas per thread of one user
+    public int adjustCounts(Long userId, List<Long> threadIds, List<Integer> messages, List<Integer> unread) {
+        if (threadIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ADJUST_COUNTS);
+            ps.setArray(1, connection.createArrayOf("bigint", threadIds.toArray()));
+            ps.setArray(2, connection.createArrayOf("integer", messages.toArray()));
+            ps.setArray(3, connection.createArrayOf("integer", unread.toArray()));
+            ps.setLong(4, userId);
+            return ps;
+        });
+    }
+
+    // Points the user's summaries of these threads at their latest live mail, after some were removed
+    public int refreshLastMail(Long userId, List<Long> threadIds) {
+        if (threadIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REFRESH_LAST_MAIL);
+            ps.setArray(1, connection.createArrayOf("bigint", threadIds.toArray()));
+            ps.setLong(2, userId);
+            ps.setLong(3, userId);
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.dto.response.ThreadResponse;
+import com.emailapp.emailservice.entity.UserThread;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserThreadRepository extends JpaRepository<UserThread, Long> {
+
+    // Thread rows come straight from the maintained summaries: one index range scan per page,
+    // however many messages the threads hold
+    String THREAD_ROW_SELECT = "SELECT new com.emailapp.emailservice.dto.response.ThreadResponse(" +
+            "ut.id, t.threadId, t.subject, t.participants, ut.messageCount, ut.unreadCount, " +
+            "ut.lastMailId, ut.lastActivityAt) " +
+            "FROM UserThread ut JOIN MailThread t ON t.threadId = ut.threadId " +
+            "WHERE ut.userId = :userId ";
+
+    @Query(THREAD_ROW_SELECT +
+            "ORDER BY ut.lastActivityAt DESC, ut.id DESC")
+    List<ThreadResponse> findThreadPage(
+            @Param("userId") Long userId,
+            Pageable pageable
+    );
+
+    // Next page, strictly after the (lastActivityAt, id) cursor
+    @Query(THREAD_ROW_SELECT +
+            "AND (ut.lastActivityAt < :lastActivityAt OR (ut.lastActivityAt = :lastActivityAt AND ut.id < :id)) " +
+            "ORDER BY ut.lastActivityAt DESC, ut.id DESC")
+    List<ThreadResponse> findThreadPageAfter(
+            @Param("userId") Long userId,
+            @Param("lastActivityAt") LocalDateTime lastActivityAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // A thread leaves the user's list with their last live message in it
+    @Modifying
+    @Query("DELETE FROM UserThread ut WHERE ut.userId = :userId AND ut.threadId IN :threadIds " +
+            "AND ut.messageCount <= 0")
+    int deleteEmpty(
+            @Param("userId") Long userId,
+            @Param("threadIds") Collection<Long> threadIds
+    );
+}
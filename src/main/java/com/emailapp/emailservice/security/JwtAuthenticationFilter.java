@@ -1,11 +1,13 @@
 package com.emailapp.emailservice.security;
 
 import com.emailapp.emailservice.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,37 +16,59 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // The authenticated token's userId claim, for endpoints that must match it against the path
+    public static final String USER_ID_ATTRIBUTE = "authenticatedUserId";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    // true: the verified token alone identifies the user (no lookup, but a deleted user keeps
+    // access until the token expires); false: principal comes from the cached user lookup
+    @Value("${security.jwt.trust-claims:false}")
+    private boolean trustClaims;
+
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
     throws ServletException, IOException {
 
         final String authorizationHandler = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
+        Optional<Claims> claims = Optional.empty();
 
+        // One signature check per token: expired or invalid tokens come back empty
         if(authorizationHandler != null && authorizationHandler.startsWith("Bearer ")){
-            jwt = authorizationHandler.substring(7); // Remove Bearer prefix
-            try{
-                username = jwtUtil.extractUsername(jwt);
-            }catch(Exception e){
-                logger.error("JWT Token extraction failed. "+e.getMessage());
+            claims = jwtUtil.verifySession(authorizationHandler.substring(7)); // Remove Bearer prefix
+            if(claims.isEmpty()){
+                logger.error("JWT Token verification failed.");
+            }
+        }else if(acceptsStreamTicket(request) && request.getParameter("ticket") != null){
+            // Browsers' EventSource and plain download links cannot set headers, so these pass a
+            // short-lived stream ticket (never the session token) as a query parameter
+            claims = jwtUtil.verifyStreamTicket(request.getParameter("ticket"));
+            if(claims.isEmpty()){
+                logger.error("Stream ticket verification failed.");
             }
         }
 
+        if(claims.isPresent()){
+            username = claims.get().getSubject();
+            request.setAttribute(USER_ID_ATTRIBUTE, claims.get().get("userId", Long.class));
+        }
+
         if(username != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = trustClaims
+                    ? this.userDetailsService.principalFromClaims(claims.get())
+                    : this.userDetailsService.loadUserForToken(username);
 
-            if(jwtUtil.validateToken(jwt, userDetails)){
+            if(username.equals(userDetails.getUsername())){
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails,null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -55,6 +79,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request,response);
     }
 
+    // Mailbox event streams, streamed AI summaries and attachment downloads
+    private boolean acceptsStreamTicket(HttpServletRequest request){
+        String uri = request.getRequestURI();
+        return uri.startsWith("/api/mails/events/") || uri.endsWith("/summary/stream")
+                || ("GET".equals(request.getMethod()) && uri.startsWith("/api/attachments/"));
+    }
+
 
 
 }
@@ -1,9 +1,11 @@
 package com.emailapp.emailservice.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -13,41 +15,96 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    // Marks a stream ticket; session tokens carry no purpose claim
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String STREAM_PURPOSE = "stream";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
+    @Value("${jwt.stream-ticket.expiration-ms:60000}")
+    private long streamTicketExpiration;
+
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Built once: both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheMaxEntries);
+    }
+
     public String generateToken(String username, long userId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId",userId);
-        return createToken(claims, username);
+        return createToken(claims, username, expiration);
+    }
+
+    /**
+     * Short-lived ticket for the endpoints a browser calls without headers (EventSource, download
+     * links), where the credential ends up in the URL and so in access logs. It is only accepted
+     * there, and a session token is not accepted in a URL at all.
+     */
+    public String generateStreamTicket(String username, long userId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put(PURPOSE_CLAIM, STREAM_PURPOSE);
+        return createToken(claims, username, streamTicketExpiration);
     }
 
     // Create JWT Token
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long expiresInMs) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        Date expiryDate = new Date(now.getTime() + expiresInMs);
 
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Get signing key
-    private SecretKey getSigningKey(){
-        byte[] keyBites = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBites);
+    /**
+     * Verifies the token once and returns its claims, or empty if the signature is invalid or the
+     * token has expired. Recently verified tokens are answered from a bounded cache without
+     * re-checking the HMAC.
+     */
+    public Optional<Claims> verify(String token) {
+        try {
+            return Optional.of(parseVerified(token));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    // A valid session token; stream tickets are refused
+    public Optional<Claims> verifySession(String token) {
+        return verify(token).filter(claims -> claims.get(PURPOSE_CLAIM) == null);
+    }
+
+    // A valid stream ticket; session tokens are refused
+    public Optional<Claims> verifyStreamTicket(String token) {
+        return verify(token).filter(claims -> STREAM_PURPOSE.equals(claims.get(PURPOSE_CLAIM)));
     }
 
     public String extractUsername(String token) {
@@ -70,33 +127,31 @@ public class JwtUtil {
 
     // Extract all claims
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseVerified(token);
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Throws JwtException for a bad signature or an expired token, like parseClaimsJws
+    private Claims parseVerified(String token) {
+        long now = System.currentTimeMillis();
+        Claims claims = verifiedTokens.get(token, now);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = jwtParser.parseClaimsJws(token).getBody();
+        verifiedTokens.put(token, claims, now);
+        return claims;
     }
 
     // Validate token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = this.extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verifySession(token)
+                .map(claims -> claims.getSubject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     // Validate token without UserDetails
     public Boolean validateToken(String token) {
-        try{
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        }catch(Exception e){
-            return false;
-        }
+        return verifySession(token).isPresent();
     }
 }
@@ -0,0 +1,43 @@
+package com.emailapp.emailservice.security;
+
+import com.emailapp.emailservice.cache.BoundedLruCache;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed exactly, one per key, in a bounded LRU: unlike StripedRateLimiter no two
+ * keys ever share a budget, so attempts against many usernames cannot lock out anyone else.
+ * Same GCRA arithmetic as StripedRateLimiter. Past maxEntries the least recently used key is
+ * forgotten (its budget starts full again); with a per-IP limit in front, flushing a throttled
+ * key that way takes maxEntries attempts from many addresses.
+ */
+class KeyedRateLimiter {
+
+    private final BoundedLruCache<String, Long> arrivals;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    KeyedRateLimiter(int maxEntries, int burst, double permitsPerSecond, LongSupplier clock) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.clock = clock;
+        this.arrivals = new BoundedLruCache<>(maxEntries);
+    }
+
+    boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        boolean[] allowed = new boolean[1];
+        arrivals.compute(key, (k, arrival) -> {
+            long base = arrival != null && arrival - now > 0 ? arrival : now;
+            long next = base + intervalNanos;
+            allowed[0] = next - now <= burstNanos;
+            return allowed[0] ? Long.valueOf(next) : arrival;
+        });
+        return allowed[0];
+    }
+
+    int size() {
+        return arrivals.size();
+    }
+}
@@ -0,0 +1,17 @@
+package com.emailapp.emailservice.security;
+
+// Thrown when a login attempt is refused before any password hashing (rate limit or busy hashing lane)
+public class LoginThrottledException extends RuntimeException {
+
+    private final boolean overloaded;
+
+    public LoginThrottledException(String message, boolean overloaded) {
+        super(message);
+        this.overloaded = overloaded;
+    }
+
+    // true: the server is busy hashing (503); false: this client or account is over its rate (429)
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+}
@@ -0,0 +1,146 @@
+package com.emailapp.emailservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dedicated, bounded pool for BCrypt work (login verification and signup hashing), so hashing
+ * bursts are capped at a fixed number of cores instead of running on every request thread.
+ * When the pool and its queue are full, or a queued task waits past its deadline, the caller
+ * gets a LoginThrottledException (overloaded) instead of waiting. Bulk hashing (user import)
+ * runs on the same threads, a few tasks at a time, so it never adds cores of its own.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final long BULK_RETRY_MS = 50;
+
+    private final ThreadPoolExecutor executor;
+    private final int poolSize;
+    private final long timeoutMs;
+
+    private final Timer hashTimer;
+    private final Counter rejectedSaturated;
+    private final Counter rejectedTimeout;
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int threads,
+                                   @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password-hashing.timeout-ms:5000}") long timeoutMs,
+                                   MeterRegistry meterRegistry) {
+        // 0 = half the cores, leaving the rest for mail traffic
+        this.poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+
+        this.hashTimer = meterRegistry.timer("auth.password.hash.latency");
+        this.rejectedSaturated = meterRegistry.counter("auth.login.rejected", "reason", "hashing_saturated");
+        this.rejectedTimeout = meterRegistry.counter("auth.login.rejected", "reason", "hashing_timeout");
+        meterRegistry.gauge("auth.password.hash.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedSaturated.increment();
+            throw new LoginThrottledException("Server is busy. Please try again shortly.", true);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Drops the task if it is still queued; a running hash finishes and is discarded
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            rejectedTimeout.increment();
+            throw new LoginThrottledException("Server is busy. Please try again shortly.", true);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("Login interrupted", true);
+        }
+    }
+
+    /**
+     * Runs a batch of hashing tasks on the pool and returns their results in order. At most
+     * maxInFlight (capped at the pool size) are queued or running at once, so logins still find
+     * room in the queue; when it is full anyway, the batch waits for them rather than failing.
+     */
+    public <T> List<T> executeAll(List<? extends Callable<T>> tasks, int maxInFlight) {
+        Semaphore inFlight = new Semaphore(maxInFlight > 0 ? Math.min(maxInFlight, poolSize) : poolSize);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                inFlight.acquire();
+                futures.add(submitWhenQueued(() -> {
+                    try {
+                        return hashTimer.recordCallable(task);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        }
+    }
+
+    private <T> Future<T> submitWhenQueued(Callable<T> task) throws InterruptedException {
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (executor.isShutdown()) {
+                    throw new IllegalStateException("Password hashing pool is shut down");
+                }
+                // The queue is full of logins; they go first
+                Thread.sleep(BULK_RETRY_MS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.emailapp.emailservice.security;
 
 import com.emailapp.emailservice.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for REST API
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE completion) re-enter the chain after the request was authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        .requestMatchers("/api/auth/stream-ticket").authenticated()
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/api/users/signup",
@@ -0,0 +1,51 @@
+package com.emailapp.emailservice.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets over a fixed number of stripes. A key is hashed to a stripe, so memory
+ * stays constant no matter how many distinct IPs an attacker sends from; keys that share
+ * a stripe share its budget.
+ *
+ * Each stripe is one long holding the bucket's "theoretical arrival time" (GCRA): an attempt is
+ * allowed while that time is at most burst intervals ahead of now, and pushes it one interval
+ * further. This behaves like a bucket of `burst` tokens refilled at one token per interval.
+ */
+class StripedRateLimiter {
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    StripedRateLimiter(int stripeCount, int burst, double permitsPerSecond, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.clock = clock;
+    }
+
+    boolean tryAcquire(String key) {
+        int stripe = spread(key.hashCode()) & mask;
+        long now = clock.getAsLong();
+        while (true) {
+            long arrival = stripes.get(stripe);
+            long base = arrival - now > 0 ? arrival : now;
+            long next = base + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (stripes.compareAndSet(stripe, arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,76 @@
+package com.emailapp.emailservice.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by the whole token
+ * string (signature included), so a forged or altered token can never hit an entry. A lookup is a
+ * ConcurrentHashMap read: no lock and no hashing beyond String.hashCode, so it stays cheaper than
+ * the HMAC it saves (see JwtVerificationBenchmark). Entries are dropped once the token's own
+ * expiration has passed. When the cache fills up, a tenth of it is freed in one pass (expired
+ * entries first, then arbitrary ones), so the scan runs once per maxEntries / 10 new tokens
+ * instead of on every miss.
+ */
+class VerifiedTokenCache {
+
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean makingRoom = new AtomicBoolean();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // Claims of a verified, unexpired token, or null
+    Claims get(String token, long nowMillis) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= nowMillis) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.claims();
+    }
+
+    void put(String token, Claims claims, long nowMillis) {
+        if (maxEntries <= 0 || claims.getExpiration() == null) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(nowMillis);
+        }
+        entries.put(token, new Entry(claims, claims.getExpiration().getTime()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // One thread frees the room; puts meanwhile go ahead and may overshoot maxEntries by a few
+    private void makeRoom(long nowMillis) {
+        if (!makingRoom.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            entries.values().removeIf(entry -> entry.expiresAtMillis() <= nowMillis);
+            Iterator<String> tokens = entries.keySet().iterator();
+            while (entries.size() > target && tokens.hasNext()) {
+                tokens.next();
+                tokens.remove();
+            }
+        } finally {
+            makingRoom.set(false);
+        }
+    }
+}
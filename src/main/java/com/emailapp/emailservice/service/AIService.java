@@ -3,73 +3,251 @@ package com.emailapp.emailservice.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.servlet.View;
 
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 @Service
 public class AIService {
 
-    private final Client geminiClient;
-    private static final String MODEL_NAME = "gemini-2.5-flash";
-
-    public AIService(@Value("${gemini.api.key}") String apiKey, View error) {
-        this.geminiClient = Client.builder().apiKey(apiKey).build();
+    private static final Logger log = LoggerFactory.getLogger(AIService.class);
+
+    private static final String SUMMARY_UNAVAILABLE = "AI summary is temporarily unavailable. Please try again shortly.";
+
+    private final AiProvider aiProvider;
+    private final AiExecutionLane aiLane;
+
+    // Identical content (e.g. a broadcast mail opened by every recipient) is generated once
+    private final AiResponseCache<String> summaryCache;
+    private final AiResponseCache<List<String>> smartReplyCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int batchMaxPromptTokens;
+    private final int batchMaxItems;
+
+    public AIService(AiProvider aiProvider, AiExecutionLane aiLane,
+                     MeterRegistry meterRegistry,
+                     @Value("${ai.cache.max-entries:10000}") int cacheMaxEntries,
+                     @Value("${ai.cache.ttl-minutes:1440}") long cacheTtlMinutes,
+                     @Value("${ai.batch.max-prompt-tokens:6000}") int batchMaxPromptTokens,
+                     @Value("${ai.batch.max-items:20}") int batchMaxItems) {
+        this.aiProvider = aiProvider;
+        this.aiLane = aiLane;
+        this.batchMaxPromptTokens = batchMaxPromptTokens;
+        this.batchMaxItems = batchMaxItems;
+        this.summaryCache = new AiResponseCache<>(
+                "summary", cacheMaxEntries, Duration.ofMinutes(cacheTtlMinutes), meterRegistry);
+        this.smartReplyCache = new AiResponseCache<>(
+                "smart-replies", cacheMaxEntries, Duration.ofMinutes(cacheTtlMinutes), meterRegistry);
     }
 
     public String summarizeMail(String emailContent){
+        try{
+            return summaryCache.get(
+                    summaryKey(emailContent),
+                    () -> generateSummary(emailContent)
+            );
+        }catch(AiUnavailableException e){
+            log.warn("AI summary unavailable: {}", e.getMessage());
+            return SUMMARY_UNAVAILABLE;
+        }catch(Exception e){
+            log.error("Gemini API error {}", e.getMessage());
+            return "Failed to generate summary due to an internal API error.";
+        }
+    }
 
-        String prompt = String.format(
-                "Summarize the following email for key action items and main topic. " +
-                        "Respond only with a concise, easy-to-read paragraph. Email content: \n\n%s",
-                emailContent
-        );
+    // Throws on failure so that fallback text is never cached
+    private String generateSummary(String emailContent){
 
-        try{
+        String prompt = buildSummaryPrompt(emailContent);
+
+        String text = aiLane.execute(() -> aiProvider.generate(prompt));
+
+        if(text != null && !text.isBlank()){
+            return text.trim();
+        }else{
+            throw new IllegalStateException("AI summary failed to generate content");
+        }
+    }
+
+    /**
+     * Streaming variant of summarizeMail: chunks reach onChunk as the model produces them.
+     * A cached summary is delivered as one chunk; a completed stream is cached for later calls.
+     */
+    public void streamSummary(String emailContent, Consumer<String> onChunk, BooleanSupplier cancelled){
+        String key = summaryKey(emailContent);
+        String cached = summaryCache.getIfPresent(key);
+        if(cached != null){
+            onChunk.accept(cached);
+            return;
+        }
+
+        // A client that goes away mid-stream cancels the call; it is not a provider failure, so it
+        // must not reach the lane (and its circuit breaker) as one. It is rethrown once the call ends.
+        AtomicReference<UncheckedIOException> disconnect = new AtomicReference<>();
+        Consumer<String> deliver = chunk -> {
+            if(disconnect.get() != null){
+                return;
+            }
+            try{
+                onChunk.accept(chunk);
+            }catch(UncheckedIOException e){
+                disconnect.set(e);
+            }
+        };
+        BooleanSupplier stopped = () -> disconnect.get() != null || cancelled.getAsBoolean();
+
+        String text = aiLane.execute(() -> aiProvider.generateStream(buildSummaryPrompt(emailContent), deliver, stopped));
+
+        if(disconnect.get() != null){
+            throw disconnect.get();
+        }
+        if(!cancelled.getAsBoolean() && text != null && !text.isBlank()){
+            summaryCache.put(key, text.trim());
+        }
+    }
 
-            GenerateContentResponse response = geminiClient.models.
-                    generateContent(
-                            MODEL_NAME,
-                            prompt,
-                            null
-                    );
+    private String buildSummaryPrompt(String emailContent){
+        return AiPrompts.summary(emailContent);
+    }
 
-            if(response != null && response.text() != null){
-                return response.text().trim();
+    /**
+     * Summarizes several mails at once, keyed by mail ID. Cached summaries are answered directly;
+     * the remaining distinct contents are packed into prompts under the token budget and the
+     * prompts run concurrently through the AI lane. A mail missing from a batch answer (or too
+     * large to share a prompt) falls back to a single summarizeMail call.
+     */
+    public Map<Long, String> summarizeBatch(Map<Long, String> contentsByMailId){
+        Map<Long, String> summaries = new LinkedHashMap<>();
+        Map<String, List<Long>> pendingByContent = new LinkedHashMap<>();
+
+        contentsByMailId.forEach((mailId, content) -> {
+            String cached = summaryCache.getIfPresent(summaryKey(content));
+            if(cached != null){
+                summaries.put(mailId, cached);
             }else{
-                return "AI summary failed to generate content";
+                pendingByContent.computeIfAbsent(content, c -> new ArrayList<>()).add(mailId);
             }
-        }catch(Exception e){
-            System.err.println("Gemini API error "+e.getMessage());
-            return "Failed to generate summary due to an internal API error.";
+        });
+
+        List<List<String>> batches = new ArrayList<>();
+        List<String> singles = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for(String content : pendingByContent.keySet()){
+            int tokens = AiPrompts.estimateTokens(content);
+            if(tokens > batchMaxPromptTokens / 2){
+                singles.add(content);
+                continue;
+            }
+            if(!current.isEmpty() && (currentTokens + tokens > batchMaxPromptTokens || current.size() >= batchMaxItems)){
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(content);
+            currentTokens += tokens;
+        }
+        if(!current.isEmpty()){
+            batches.add(current);
+        }
+
+        Map<String, String> generated = new HashMap<>();
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+            List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+            for(List<String> batch : batches){
+                futures.add(CompletableFuture.supplyAsync(() -> generateBatch(batch), executor));
+            }
+            for(String content : singles){
+                futures.add(CompletableFuture.supplyAsync(() -> Map.of(content, summarizeMail(content)), executor));
+            }
+            futures.forEach(future -> generated.putAll(future.join()));
         }
+
+        pendingByContent.forEach((content, mailIds) -> {
+            String summary = generated.get(content);
+            mailIds.forEach(mailId -> summaries.put(mailId, summary));
+        });
+        return summaries;
     }
 
-    public List<String> generateSmartReplies(String emailContent){
-        String prompt = String.format(
-                "Based on the following email, generate exactly 3 short, helpful, and professional " +
-                        "reply options (max 10 words each). " +
-                        "Return the response ONLY as a JSON array of strings. " +
-                        "Example: [\"Sounds good!\", \"I'll check and let you know.\", \"Can we reschedule?\"] " +
-                        "Email content: \n\n%s",
-                emailContent
-        );
+    // One prompt for the whole batch; contents the answer does not cover are summarized one by one,
+    // unless the lane is unavailable, in which case single calls would only be turned away too
+    private Map<String, String> generateBatch(List<String> contents){
+        Map<String, String> results = new HashMap<>();
+        if(contents.size() > 1){
+            try{
+                String rawText = aiLane.execute(() -> aiProvider.generate(AiPrompts.batchSummary(contents)));
+                String cleanJson = rawText.replace("```json", "").replace("```", "").trim();
+                List<Map<String, Object>> items = objectMapper.readValue(cleanJson, new TypeReference<List<Map<String, Object>>>() {});
+                for(Map<String, Object> item : items){
+                    int index = Integer.parseInt(String.valueOf(item.get("id"))) - 1;
+                    Object summary = item.get("summary");
+                    if(index >= 0 && index < contents.size() && summary != null && !summary.toString().isBlank()){
+                        String content = contents.get(index);
+                        results.put(content, summary.toString().trim());
+                        summaryCache.put(summaryKey(content), summary.toString().trim());
+                    }
+                }
+            }catch(AiUnavailableException e){
+                log.warn("AI batch summary unavailable: {}", e.getMessage());
+                for(String content : contents){
+                    results.putIfAbsent(content, SUMMARY_UNAVAILABLE);
+                }
+                return results;
+            }catch(Exception e){
+                log.warn("Batch summary error, falling back to single requests: {}", e.getMessage());
+            }
+        }
+        for(String content : contents){
+            results.computeIfAbsent(content, this::summarizeMail);
+        }
+        return results;
+    }
+
+    private String summaryKey(String emailContent){
+        return AiResponseCache.key(aiProvider.modelName(), "summary", emailContent);
+    }
 
+    public List<String> generateSmartReplies(String emailContent){
         try{
-            GenerateContentResponse response = geminiClient.models.generateContent(MODEL_NAME,prompt,null);
-            String rawText = response.text().trim();
+            return smartReplyCache.get(
+                    AiResponseCache.key(aiProvider.modelName(), "smart-replies", emailContent),
+                    () -> generateReplies(emailContent)
+            );
+        }catch(Exception e){
+            log.error("Smart reply error: {}", e.getMessage());
+            return List.of("reply 1", "reply 2", "reply 3"); // Fallback
+        }
+    }
+
+    private List<String> generateReplies(String emailContent){
+        String prompt = AiPrompts.smartReplies(emailContent);
 
+        String rawText = aiLane.execute(() -> aiProvider.generate(prompt)).trim();
+
+        try{
             String cleanJson = rawText.replace("```json", "").replace("```", "").trim();
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.readValue(cleanJson, new TypeReference<List<String>>() {});
+            return List.copyOf(objectMapper.readValue(cleanJson, new TypeReference<List<String>>() {}));
         }catch(Exception e){
-            System.err.println("Smart reply error: "+e.getMessage());
-            return List.of("reply 1", "reply 2", "reply 3"); // Fallback
+            throw new IllegalStateException(e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,177 @@
+package com.emailapp.emailservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated, bounded lane for model calls, so a slow model cannot tie up every Tomcat worker.
+ *
+ * - at most maxConcurrent calls run at once, each on its own virtual thread
+ * - at most maxQueue callers wait for a slot, and only for queueTimeoutMs
+ * - every call has a hard deadline (callTimeoutMs) after which it is cancelled; its slot is only
+ *   freed when the call actually ends, so calls that ignore the interrupt still count
+ * - a circuit breaker fails fast while the provider keeps failing
+ *
+ * Rejections and timeouts surface as AiUnavailableException so callers can fall back.
+ */
+@Component
+public class AiExecutionLane {
+
+    private final int maxQueue;
+    private final long queueTimeoutMs;
+    private final long callTimeoutMs;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AiCircuitBreaker circuitBreaker;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter rejectedBulkhead;
+    private final Counter rejectedCircuit;
+    private final Counter timeouts;
+
+    public AiExecutionLane(@Value("${ai.lane.max-concurrent:4}") int maxConcurrent,
+                           @Value("${ai.lane.max-queue:16}") int maxQueue,
+                           @Value("${ai.lane.queue-timeout-ms:2000}") long queueTimeoutMs,
+                           @Value("${ai.lane.call-timeout-ms:20000}") long callTimeoutMs,
+                           @Value("${ai.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${ai.circuit.open-ms:30000}") long openMs,
+                           MeterRegistry meterRegistry) {
+        this.maxQueue = maxQueue;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.callTimeoutMs = callTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.circuitBreaker = new AiCircuitBreaker(failureThreshold, openMs);
+
+        this.successTimer = meterRegistry.timer("ai.call.latency", "outcome", "success");
+        this.failureTimer = meterRegistry.timer("ai.call.latency", "outcome", "failure");
+        this.rejectedBulkhead = meterRegistry.counter("ai.call.rejected", "reason", "bulkhead");
+        this.rejectedCircuit = meterRegistry.counter("ai.call.rejected", "reason", "circuit_open");
+        this.timeouts = meterRegistry.counter("ai.call.rejected", "reason", "timeout");
+        meterRegistry.gauge("ai.lane.queue.depth", waiting);
+        meterRegistry.gauge("ai.lane.active", active);
+        meterRegistry.gauge("ai.circuit.open", this, lane -> lane.getCircuitState() == AiCircuitBreaker.State.CLOSED ? 0 : 1);
+    }
+
+    public <T> T execute(Callable<T> call) {
+        if (!circuitBreaker.allowRequest()) {
+            rejectedCircuit.increment();
+            throw new AiUnavailableException("AI provider circuit is open");
+        }
+
+        if (!acquirePermit()) {
+            circuitBreaker.onIgnored();
+            rejectedBulkhead.increment();
+            throw new AiUnavailableException("AI lane is saturated");
+        }
+
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        // Whoever runs (or abandons) the call frees the slot, exactly once
+        AtomicBoolean started = new AtomicBoolean();
+        Callable<T> task = () -> {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return call.call();
+            } finally {
+                releaseSlot();
+            }
+        };
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RuntimeException e) {
+            releaseSlot();
+            circuitBreaker.onIgnored();
+            throw e;
+        }
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (TimeoutException e) {
+            abandon(future, started);
+            circuitBreaker.onFailure();
+            timeouts.increment();
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new AiUnavailableException("AI call timed out after " + callTimeoutMs + " ms");
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            abandon(future, started);
+            circuitBreaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new AiUnavailableException("AI call interrupted");
+        }
+    }
+
+    // Interrupts the call; one that never started is claimed here so its slot is freed now
+    private void abandon(Future<?> future, AtomicBoolean started) {
+        future.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            releaseSlot();
+        }
+    }
+
+    private void releaseSlot() {
+        active.decrementAndGet();
+        permits.release();
+    }
+
+    public AiCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean acquirePermit() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
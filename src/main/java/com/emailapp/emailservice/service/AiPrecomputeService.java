@@ -0,0 +1,182 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.event.MailboxChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional background stage that warms the AI caches when mail arrives, so the summary and
+ * smart replies are ready by the time a recipient opens the mail.
+ *
+ * New mails go into a bounded priority queue (mails with more recipients first). When the
+ * queue is full the configured drop policy applies, and tasks older than max-age are skipped,
+ * so a burst of mail can never turn into an unbounded burst of AI calls.
+ */
+@Service
+@ConditionalOnProperty(name = "ai.precompute.enabled", havingValue = "true")
+public class AiPrecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(AiPrecomputeService.class);
+
+    public enum DropPolicy {
+        DROP_NEWEST,   // Reject the incoming mail
+        DROP_LOWEST    // Evict the lowest-priority queued mail if the new one outranks it
+    }
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ai.precompute.queue-capacity:1000}")
+    private int capacity;
+
+    @Value("${ai.precompute.workers:2}")
+    private int workerCount;
+
+    @Value("${ai.precompute.drop-policy:DROP_LOWEST}")
+    private DropPolicy dropPolicy;
+
+    @Value("${ai.precompute.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    // Highest priority first, then oldest first
+    private final TreeSet<PrecomputeTask> queue = new TreeSet<>(
+            Comparator.comparingInt(PrecomputeTask::priority).reversed()
+                    .thenComparingLong(PrecomputeTask::sequence));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private Counter enqueued;
+    private Counter dropped;
+    private Counter expired;
+    private Counter completed;
+
+    @PostConstruct
+    public void start() {
+        enqueued = meterRegistry.counter("ai.precompute.tasks", "result", "enqueued");
+        dropped = meterRegistry.counter("ai.precompute.tasks", "result", "dropped");
+        expired = meterRegistry.counter("ai.precompute.tasks", "result", "expired");
+        completed = meterRegistry.counter("ai.precompute.tasks", "result", "completed");
+        meterRegistry.gauge("ai.precompute.queue.size", this, AiPrecomputeService::queueSize);
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("ai-precompute-" + i).start(this::runWorker));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailboxChanged(MailboxChangedEvent event) {
+        if (event.getType() != MailboxChangedEvent.Type.MAIL_RECEIVED) {
+            return;
+        }
+        for (Long mailId : event.getMailIds()) {
+            offer(mailId, event.getUserIds().size());
+        }
+    }
+
+    public boolean offer(Long mailId, int priority) {
+        PrecomputeTask task = new PrecomputeTask(mailId, priority, sequence.incrementAndGet(), System.nanoTime());
+        lock.lock();
+        try {
+            if (queue.size() >= capacity) {
+                PrecomputeTask lowest = queue.last();
+                if (dropPolicy == DropPolicy.DROP_NEWEST || lowest.priority() >= priority) {
+                    dropped.increment();
+                    return false;
+                }
+                queue.pollLast();
+                dropped.increment();
+            }
+            queue.add(task);
+            enqueued.increment();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            PrecomputeTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (System.nanoTime() - task.enqueuedAt() > maxAgeSeconds * 1_000_000_000L) {
+                expired.increment();
+                continue;
+            }
+
+            try {
+                String content = mailService.findMailContent(task.mailId()).orElse(null);
+                if (content == null || content.isBlank()) {
+                    continue;
+                }
+                // Both calls populate AIService's caches; already-cached content costs nothing
+                aiService.summarizeMail(content);
+                aiService.generateSmartReplies(content);
+                completed.increment();
+            } catch (Exception e) {
+                log.warn("AI precompute failed for mail {}: {}", task.mailId(), e.getMessage());
+            }
+        }
+    }
+
+    private PrecomputeTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            return queue.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record PrecomputeTask(Long mailId, int priority, long sequence, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.emailapp.emailservice.service;
+
+import java.util.List;
+
+/**
+ * Prompt templates shared by AIService and the providers. Keeping them in one place lets the
+ * local stub provider answer every prompt in the format AIService expects.
+ */
+public final class AiPrompts {
+
+    public static final String CONTENT_MARKER = "Email content: \n\n";
+    public static final String REPLIES_FORMAT = "Return the response ONLY as a JSON array of strings.";
+    public static final String BATCH_FORMAT = "Return ONLY a JSON array of objects with fields \"id\" and \"summary\".";
+    public static final String BATCH_ITEM_PREFIX = "<<<EMAIL ";
+    public static final String BATCH_ITEM_SUFFIX = ">>>";
+
+    private AiPrompts() {
+    }
+
+    public static String summary(String emailContent) {
+        return "Summarize the following email for key action items and main topic. " +
+                "Respond only with a concise, easy-to-read paragraph. " + CONTENT_MARKER + emailContent;
+    }
+
+    public static String smartReplies(String emailContent) {
+        return "Based on the following email, generate exactly 3 short, helpful, and professional " +
+                "reply options (max 10 words each). " + REPLIES_FORMAT + " " +
+                "Example: [\"Sounds good!\", \"I'll check and let you know.\", \"Can we reschedule?\"] " +
+                CONTENT_MARKER + emailContent;
+    }
+
+    // Several emails in one prompt, each tagged with a short local id the response refers back to
+    public static String batchSummary(List<String> emailContents) {
+        StringBuilder prompt = new StringBuilder(
+                "Summarize each of the following emails for key action items and main topic, " +
+                "one concise paragraph per email. " + BATCH_FORMAT + " " +
+                "Use the number after EMAIL as the id.\n\n");
+        for (int i = 0; i < emailContents.size(); i++) {
+            prompt.append(BATCH_ITEM_PREFIX).append(i + 1).append(BATCH_ITEM_SUFFIX).append('\n')
+                    .append(emailContents.get(i)).append("\n\n");
+        }
+        return prompt.toString();
+    }
+
+    // Rough token estimate (~4 characters per token) used for batch packing
+    public static int estimateTokens(String text) {
+        return text.length() / 4 + 1;
+    }
+}
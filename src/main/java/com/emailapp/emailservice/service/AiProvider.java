@@ -0,0 +1,28 @@
+package com.emailapp.emailservice.service;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * A text-generation backend. Implementations make one blocking model call per invocation;
+ * concurrency limits, deadlines and caching are applied by AIService around them.
+ */
+public interface AiProvider {
+
+    String modelName();
+
+    String generate(String prompt);
+
+    /**
+     * Streams the response, handing each chunk to onChunk as soon as the model produces it,
+     * and stops early once cancelled returns true. Returns the full text that was produced.
+     * Providers without streaming support deliver the whole response as a single chunk.
+     */
+    default String generateStream(String prompt, Consumer<String> onChunk, BooleanSupplier cancelled) {
+        String text = generate(prompt);
+        if (!cancelled.getAsBoolean()) {
+            onChunk.accept(text);
+        }
+        return text;
+    }
+}
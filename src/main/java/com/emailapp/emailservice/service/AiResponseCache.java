@@ -0,0 +1,142 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.cache.BoundedLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache with TTL for AI results, keyed by a hash of model + prompt kind + content.
+ * Concurrent misses for the same key share one in-flight model call (single flight).
+ * Loader failures are propagated to every waiter and never cached.
+ */
+public class AiResponseCache<V> {
+
+    private final long ttlNanos;
+    private final BoundedLruCache<String, CacheEntry<V>> entries;
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter joined;
+
+    public AiResponseCache(String name, int maxEntries, Duration ttl, MeterRegistry meterRegistry) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new BoundedLruCache<>(maxEntries);
+
+        this.hits = meterRegistry.counter("ai.cache.requests", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("ai.cache.requests", "cache", name, "result", "miss");
+        this.joined = meterRegistry.counter("ai.cache.requests", "cache", name, "result", "joined");
+        meterRegistry.gauge("ai.cache.size", Tags.of("cache", name), this, AiResponseCache::size);
+    }
+
+    public static String key(String model, String kind, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(kind.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public V get(String key, Supplier<V> loader) {
+        V cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            joined.increment();
+            return await(existing);
+        }
+
+        try {
+            // Another caller may have finished between our lookup and taking the in-flight slot
+            V value = lookup(key);
+            if (value == null) {
+                misses.increment();
+                value = loader.get();
+                if (value != null) {
+                    store(key, value);
+                }
+            } else {
+                hits.increment();
+            }
+            call.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public boolean contains(String key) {
+        return lookup(key) != null;
+    }
+
+    // Direct access for callers that cannot use the single-flight loader (e.g. streaming)
+    public V getIfPresent(String key) {
+        V value = lookup(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    public void put(String key, V value) {
+        store(key, value);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private V lookup(String key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt > ttlNanos) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void store(String key, V value) {
+        entries.put(key, new CacheEntry<>(value, System.nanoTime()));
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CacheEntry<V>(V value, long storedAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.emailapp.emailservice.service;
+
+// Thrown when an AI call is rejected (bulkhead full, circuit open) or misses its deadline
+public class AiUnavailableException extends RuntimeException {
+
+    public AiUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,190 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.response.AttachmentResponse;
+import com.emailapp.emailservice.entity.Mail;
+import com.emailapp.emailservice.entity.MailAttachment;
+import com.emailapp.emailservice.repository.AttachmentBlobRepository;
+import com.emailapp.emailservice.repository.MailAttachmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Attachments are uploaded on their own (streamed to the store, never held in memory), then
+ * linked to a mail when it is sent. Every recipient's mailbox row points at the same mail, and
+ * identical files share one stored copy, so a file sent to many people is stored once.
+ */
+@Service
+public class AttachmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentService.class);
+
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    public record Download(MailAttachment attachment, Path path) {
+    }
+
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private MailAttachmentRepository mailAttachmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attachments.max-size-bytes:104857600}")
+    private long maxSizeBytes;
+
+    @Value("${attachments.abandoned-after-hours:24}")
+    private long abandonedAfterHours;
+
+    // Not @Transactional: the stream is copied to disk first, and the metadata is written in a
+    // short transaction afterwards instead of holding a connection for the whole upload
+    public AttachmentResponse upload(Long userId, String fileName, String contentType,
+                                     InputStream content, long contentLength) throws IOException {
+        String name = sanitizeFileName(fileName);
+        if (contentLength > maxSizeBytes) {
+            throw new AttachmentTooLargeException(maxSizeBytes);
+        }
+
+        AttachmentStore.StagedFile staged = attachmentStore.stage(content, maxSizeBytes);
+        MailAttachment attachment = new MailAttachment();
+        attachment.setUploaderId(userId);
+        attachment.setFileName(name);
+        attachment.setContentType(contentType == null || contentType.isBlank() ? DEFAULT_CONTENT_TYPE : contentType);
+        attachment.setSizeBytes(staged.sizeBytes());
+        attachment.setSha256(staged.sha256());
+
+        try {
+            // The reference is committed before the store lock is released, so a concurrent
+            // release of the same content sees it and keeps the file
+            attachmentStore.commit(staged, () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                attachmentBlobRepository.addReference(staged.sha256(), staged.sizeBytes());
+                mailAttachmentRepository.save(attachment);
+            }));
+        } finally {
+            attachmentStore.discard(staged);
+        }
+        return toResponse(attachment);
+    }
+
+    // Links the sender's pending uploads to the mail being sent, inside the sending transaction
+    public void attachToMail(Long senderId, Collection<Long> attachmentIds, Mail mail) {
+        List<Long> ids = attachmentIds.stream().distinct().collect(Collectors.toList());
+        int linked = mailAttachmentRepository.attachToMail(mail, senderId, ids);
+        if (linked != ids.size()) {
+            throw new PermanentDeliveryException("Attachment not found or already sent");
+        }
+    }
+
+    public List<AttachmentResponse> listForMail(Long mailId) {
+        return mailAttachmentRepository.findByMailId(mailId).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    public Download openForDownload(Long userId, Long attachmentId) {
+        if (!mailAttachmentRepository.isVisibleTo(attachmentId, userId)) {
+            throw new RuntimeException("Attachment not found");
+        }
+        MailAttachment attachment = mailAttachmentRepository.findById(attachmentId)
+                .orElseThrow(() -> new RuntimeException("Attachment not found"));
+        return new Download(attachment, attachmentStore.pathFor(attachment.getSha256()));
+    }
+
+    // Called when mails are removed for good: drops their attachment rows and references.
+    // Files whose last reference went away are deleted after the transaction commits.
+    public void releaseForMails(Collection<Long> mailIds) {
+        List<String> sha256s = mailAttachmentRepository.findSha256ByMailIds(mailIds);
+        if (sha256s.isEmpty()) {
+            return;
+        }
+        mailAttachmentRepository.deleteByMailIds(mailIds);
+        releaseReferences(sha256s);
+    }
+
+    // Uploads never linked to a mail (the send failed or was abandoned)
+    @Scheduled(fixedDelayString = "${attachments.purge-interval-ms:3600000}")
+    public void purgeAbandonedUploads() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                List<MailAttachment> abandoned = mailAttachmentRepository.findAbandoned(
+                        LocalDateTime.now().minusHours(abandonedAfterHours));
+                if (abandoned.isEmpty()) {
+                    return;
+                }
+                mailAttachmentRepository.deleteAllInBatch(abandoned);
+                releaseReferences(abandoned.stream().map(MailAttachment::getSha256).collect(Collectors.toList()));
+            });
+        } catch (Exception e) {
+            log.error("Abandoned attachment purge failed: {}", e.getMessage());
+        }
+    }
+
+    private void releaseReferences(List<String> sha256s) {
+        // Sorted so concurrent releases update blob rows in the same order
+        Map<String, Long> counts = sha256s.stream()
+                .collect(Collectors.groupingBy(sha -> sha, TreeMap::new, Collectors.counting()));
+        counts.forEach((sha, count) -> attachmentBlobRepository.releaseReferences(sha, count.intValue()));
+
+        List<String> unreferenced = attachmentBlobRepository.findUnreferenced(counts.keySet());
+        if (unreferenced.isEmpty()) {
+            return;
+        }
+        attachmentBlobRepository.deleteUnreferenced(unreferenced);
+
+        Runnable deleteFiles = () -> unreferenced.forEach(sha -> attachmentStore.deleteIfUnreferenced(
+                sha, () -> attachmentBlobRepository.existsById(sha)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteFiles.run();
+                }
+            });
+        } else {
+            deleteFiles.run();
+        }
+    }
+
+    private String sanitizeFileName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        // Keep only the last path segment a browser might send along
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        return name.length() > MAX_FILE_NAME_LENGTH ? name.substring(0, MAX_FILE_NAME_LENGTH) : name;
+    }
+
+    private AttachmentResponse toResponse(MailAttachment attachment) {
+        return new AttachmentResponse(
+                attachment.getId(), attachment.getFileName(), attachment.getContentType(),
+                attachment.getSizeBytes(), attachment.getSha256(), attachment.getCreatedAt()
+        );
+    }
+}
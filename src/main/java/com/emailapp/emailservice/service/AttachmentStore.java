@@ -0,0 +1,160 @@
+package com.emailapp.emailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Content-addressed file store on local disk: a file lives at {root}/{sha[0..2]}/{sha[2..4]}/{sha}.
+ *
+ * Uploads stream through a fixed 64 KiB direct buffer into a temp file while the SHA-256 is
+ * computed, so heap use does not grow with file size. The temp file is then moved into place,
+ * or dropped if identical content is already stored.
+ *
+ * Placing and deleting a given hash happen under a striped lock, so a file whose last
+ * reference was just released cannot be deleted underneath a concurrent upload of the same
+ * content. This assumes one application instance per storage directory.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentStore.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    public record StagedFile(Path tempFile, String sha256, long sizeBytes) {
+    }
+
+    private final Path root;
+    private final Path tempDir;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public AttachmentStore(@Value("${attachments.storage-dir:./data/attachments}") String storageDir) {
+        this.root = Path.of(storageDir).toAbsolutePath().normalize();
+        this.tempDir = root.resolve("tmp");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Streams the input into a temp file, hashing as it goes. Fails with
+     * AttachmentTooLargeException once more than maxBytes have been read.
+     */
+    public StagedFile stage(InputStream input, long maxBytes) throws IOException {
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, "upload-", ".part");
+        MessageDigest digest = sha256();
+        long size = 0;
+
+        try (ReadableByteChannel in = Channels.newChannel(input);
+             FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                if (size > maxBytes) {
+                    throw new AttachmentTooLargeException(maxBytes);
+                }
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return new StagedFile(tempFile, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Moves a staged file to its content address (or discards it when that content is already
+     * stored), then runs register while still holding the hash's lock.
+     */
+    public void commit(StagedFile staged, Runnable register) throws IOException {
+        ReentrantLock lock = lockFor(staged.sha256());
+        lock.lock();
+        try {
+            Path target = pathFor(staged.sha256());
+            if (Files.exists(target)) {
+                Files.deleteIfExists(staged.tempFile());
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(staged.tempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(staged.tempFile(), target);
+                } catch (FileAlreadyExistsException e) {
+                    Files.deleteIfExists(staged.tempFile());
+                }
+            }
+            register.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void discard(StagedFile staged) {
+        try {
+            Files.deleteIfExists(staged.tempFile());
+        } catch (IOException e) {
+            log.warn("Could not delete staged upload {}: {}", staged.tempFile(), e.getMessage());
+        }
+    }
+
+    // Deletes the stored file unless stillReferenced reports a (re-)added reference
+    public void deleteIfUnreferenced(String sha256, BooleanSupplier stillReferenced) {
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            if (!stillReferenced.getAsBoolean()) {
+                Files.deleteIfExists(pathFor(sha256));
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete attachment content {}: {}", sha256, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path pathFor(String sha256) {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content address: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private ReentrantLock lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
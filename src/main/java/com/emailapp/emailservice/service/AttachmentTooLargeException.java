@@ -0,0 +1,9 @@
+package com.emailapp.emailservice.service;
+
+// Thrown while streaming an upload as soon as it exceeds the configured size limit
+public class AttachmentTooLargeException extends RuntimeException {
+
+    public AttachmentTooLargeException(long maxBytes) {
+        super("Attachment exceeds the maximum size of " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,56 @@
+package com.emailapp.emailservice.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs background maintenance as a low-priority consumer of the connection pool: at most
+ * maxChunks chunks, a pause between them, and nothing more once foreground requests are waiting
+ * for a connection or the pool is busier than maxPoolUsage. What is left waits for the next run.
+ */
+@Component
+public class BackgroundChunkRunner {
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Chunks until one does no work, the budget is spent or the pool gets busy; returns the work done
+    public int run(IntSupplier chunk, int maxChunks, long pauseMs, double maxPoolUsage) throws InterruptedException {
+        int total = 0;
+        for (int i = 0; i < maxChunks && !poolIsBusy(maxPoolUsage); i++) {
+            int done = chunk.getAsInt();
+            if (done == 0) {
+                break;
+            }
+            total += done;
+            Thread.sleep(pauseMs);
+        }
+        return total;
+    }
+
+    // Against the configured maximum, since an idle pool may not have grown to it yet
+    private boolean poolIsBusy(double maxPoolUsage) {
+        HikariDataSource hikari = hikariDataSource();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return false;
+        }
+        return pool.getThreadsAwaitingConnection() > 0
+                || pool.getActiveConnections() >= Math.max(1, hikari.getMaximumPoolSize() * maxPoolUsage);
+    }
+
+    // Null when the pool is not Hikari (embedded test databases); the pool is then never busy
+    private HikariDataSource hikariDataSource() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
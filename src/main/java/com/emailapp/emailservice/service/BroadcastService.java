@@ -0,0 +1,185 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.BroadcastRequest;
+import com.emailapp.emailservice.dto.response.BroadcastResponse;
+import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.entity.BroadcastJob;
+import com.emailapp.emailservice.entity.BroadcastStatus;
+import com.emailapp.emailservice.entity.DistributionList;
+import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.entity.MailRole;
+import com.emailapp.emailservice.event.MailboxChangedEvent;
+import com.emailapp.emailservice.repository.BroadcastJobRepository;
+import com.emailapp.emailservice.repository.DistributionListMemberRepository;
+import com.emailapp.emailservice.repository.DistributionListRepository;
+import com.emailapp.emailservice.repository.MailRepository;
+import com.emailapp.emailservice.repository.UserMailboxBulkRepository;
+import com.emailapp.emailservice.repository.UserMailboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mails a distribution list. start() creates the mail and the sender's copy and records a job;
+ * BroadcastWorker then delivers it chunk by chunk. Each chunk reads the next members by keyset,
+ * writes their inbox rows in one bulk statement, bumps their unread counters and advances the
+ * job's cursor, all in one short transaction: a crash or failure resumes after the last
+ * committed chunk, and no recipient gets the mail twice.
+ */
+@Service
+public class BroadcastService {
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private DistributionListRepository distributionListRepository;
+
+    @Autowired
+    private DistributionListMemberRepository memberRepository;
+
+    @Autowired
+    private BroadcastJobRepository broadcastJobRepository;
+
+    @Autowired
+    private UserMailboxBulkRepository userMailboxBulkRepository;
+
+    @Autowired
+    private UserMailboxRepository userMailboxRepository;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private ThreadSummaryService threadSummaryService;
+
+    @Autowired
+    private MailRepository mailRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${mail.broadcast.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${mail.broadcast.max-attempts:5}")
+    private int maxAttempts;
+
+    @Transactional
+    public BroadcastResponse start(Long senderId, Long listId, BroadcastRequest request) {
+        DistributionList list = distributionListRepository.findOwned(listId, senderId)
+                .orElseThrow(() -> new RuntimeException("Distribution list not found with ID: " + listId));
+        long members = memberRepository.countByListId(list.getListId());
+        if (members == 0) {
+            throw new RuntimeException("Distribution list has no members");
+        }
+
+        MailResponse sent = mailService.createBroadcastMail(senderId, request.getSubject(), request.getContent());
+
+        BroadcastJob job = new BroadcastJob();
+        job.setListId(list.getListId());
+        job.setSenderId(senderId);
+        job.setMailId(sent.getMailId());
+        job.setTotalRecipients((int) members);
+        return convertToResponse(broadcastJobRepository.save(job));
+    }
+
+    public BroadcastResponse getStatus(Long senderId, Long broadcastId) {
+        return broadcastJobRepository.findById(broadcastId)
+                .filter(job -> job.getSenderId().equals(senderId))
+                .map(this::convertToResponse)
+                .orElseThrow(() -> new RuntimeException("Broadcast not found with ID: " + broadcastId));
+    }
+
+    public List<Long> findActiveIds() {
+        return broadcastJobRepository.findActiveIds();
+    }
+
+    // Delivers the next chunk; false once the job is finished or another instance holds it
+    @Transactional
+    public boolean deliverNextChunk(Long broadcastId) {
+        BroadcastJob job = broadcastJobRepository.lockActive(broadcastId).orElse(null);
+        if (job == null) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> userIds = memberRepository.findMemberIdsAfter(
+                job.getListId(), job.getLastUserId(), PageRequest.of(0, chunkSize));
+        if (userIds.isEmpty()) {
+            job.setStatus(BroadcastStatus.COMPLETED);
+            job.setCompletedAt(now);
+            job.setUpdatedAt(now);
+            broadcastJobRepository.save(job);
+            return false;
+        }
+
+        int written = userMailboxBulkRepository.insertUnread(
+                job.getMailId(), userIds, MailRole.RECIPIENT, MailFolder.INBOX, now);
+        mailboxCounterService.adjustUnread(userIds, MailFolder.INBOX, 1);
+        mailRepository.findThreadId(job.getMailId()).ifPresent(threadId ->
+                threadSummaryService.recordDelivery(threadId, job.getMailId(), now, userIds));
+
+        job.setStatus(BroadcastStatus.RUNNING);
+        job.setLastUserId(userIds.get(userIds.size() - 1));
+        job.setDeliveredCount(job.getDeliveredCount() + written);
+        job.setUpdatedAt(now);
+        broadcastJobRepository.save(job);
+
+        eventPublisher.publishEvent(new MailboxChangedEvent(
+                MailboxChangedEvent.Type.MAIL_RECEIVED, userIds, List.of(job.getMailId()),
+                inboxRow(job, now)));
+        return true;
+    }
+
+    // Runs after deliverNextChunk() rolled back, so it needs its own transaction
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordFailure(Long broadcastId, String error) {
+        broadcastJobRepository.findById(broadcastId).ifPresent(job -> {
+            int attempts = job.getAttempts() + 1;
+            job.setAttempts(attempts);
+            job.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            job.setUpdatedAt(LocalDateTime.now());
+            if (attempts >= maxAttempts) {
+                job.setStatus(BroadcastStatus.FAILED);
+            }
+            broadcastJobRepository.save(job);
+        });
+    }
+
+    // The recipients' listing row, derived from the sender's copy (null once the sender deleted it)
+    private MailResponse inboxRow(BroadcastJob job, LocalDateTime receivedAt) {
+        List<MailResponse> rows = userMailboxRepository.findMailRows(job.getSenderId(), job.getMailId());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        MailResponse row = rows.get(0);
+        row.setMailboxId(null);
+        row.setReceivedAt(receivedAt);
+        row.setIsRead(false);
+        row.setIsStarred(false);
+        row.setFolder(MailFolder.INBOX.toString());
+        return row;
+    }
+
+    private BroadcastResponse convertToResponse(BroadcastJob job) {
+        BroadcastResponse response = new BroadcastResponse();
+        response.setBroadcastId(job.getId());
+        response.setListId(job.getListId());
+        response.setMailId(job.getMailId());
+        response.setStatus(job.getStatus().toString());
+        response.setTotalRecipients(job.getTotalRecipients());
+        response.setDeliveredCount(job.getDeliveredCount());
+        response.setLastError(job.getLastError());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        return response;
+    }
+}
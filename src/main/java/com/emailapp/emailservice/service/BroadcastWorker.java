@@ -0,0 +1,36 @@
+package com.emailapp.emailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives active broadcasts to completion, one committed chunk at a time. Each poll gives every
+ * active job one chunk, so a large list never holds a scheduler thread for its whole delivery
+ * and concurrent broadcasts progress side by side. Several instances can run this: a job held by
+ * one is skipped by the others until its chunk commits.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.broadcast.enabled", havingValue = "true", matchIfMissing = true)
+public class BroadcastWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(BroadcastWorker.class);
+
+    @Autowired
+    private BroadcastService broadcastService;
+
+    @Scheduled(fixedDelayString = "${mail.broadcast.poll-interval-ms:500}")
+    public void poll() {
+        for (Long broadcastId : broadcastService.findActiveIds()) {
+            try {
+                broadcastService.deliverNextChunk(broadcastId);
+            } catch (Exception e) {
+                log.warn("Broadcast {} chunk failed: {}", broadcastId, e.getMessage());
+                broadcastService.recordFailure(broadcastId, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.emailapp.emailservice.service;
 
+import com.emailapp.emailservice.cache.BoundedLruCache;
 import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.event.UserChangedEvent;
 import com.emailapp.emailservice.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -16,6 +24,35 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${security.user-cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${security.user-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private record CachedPrincipal(UserDetails principal, long expiresAtNanos) {
+    }
+
+    // Eviction generation of a username, kept only while database loads for it are in flight.
+    // Only changed inside loadGenerations.compute for its username.
+    private static final class LoadGeneration {
+        private long generation;
+        private int loaders;
+    }
+
+    // Principals for token authentication
+    private BoundedLruCache<String, CachedPrincipal> principals;
+
+    // Caching a load and evicting a username both happen in compute for that username, so they
+    // cannot interleave
+    private final Map<String, LoadGeneration> loadGenerations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        principals = new BoundedLruCache<>(cacheMaxEntries);
+    }
+
+    // Password login: always reads the current password hash from the database
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
@@ -28,6 +65,66 @@ public class CustomUserDetailsService implements UserDetailsService {
         );
     }
 
+    /**
+     * Principal for a request that already carries a verified token. Served from a bounded
+     * cache with a TTL, so steady-state requests make no database round trip. The cached
+     * principal holds no password hash. A load that an eviction overtook is returned but not
+     * cached, so it cannot put back a principal the eviction meant to drop.
+     */
+    public UserDetails loadUserForToken(String username) throws UsernameNotFoundException {
+        long now = System.nanoTime();
+        CachedPrincipal cached = principals.get(username);
+        if (cached != null && cached.expiresAtNanos() - now > 0) {
+            return cached.principal();
+        }
+
+        long[] generation = new long[1];
+        loadGenerations.compute(username, (u, load) -> {
+            load = load != null ? load : new LoadGeneration();
+            load.loaders++;
+            generation[0] = load.generation;
+            return load;
+        });
+
+        UserDetails principal = null;
+        try {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: "+username));
+            principal = new org.springframework.security.core.userdetails.User(
+                    user.getUsername(), "", new ArrayList<>());
+            return principal;
+        } finally {
+            UserDetails loaded = principal;
+            loadGenerations.compute(username, (u, load) -> {
+                if (loaded != null && load.generation == generation[0]) {
+                    principals.put(username, new CachedPrincipal(loaded, now + cacheTtlSeconds * 1_000_000_000L));
+                }
+                return --load.loaders == 0 ? null : load;
+            });
+        }
+    }
+
+    // Principal built from the verified token alone (security.jwt.trust-claims=true)
+    public UserDetails principalFromClaims(Claims claims) {
+        return new org.springframework.security.core.userdetails.User(
+                claims.getSubject(), "", new ArrayList<>());
+    }
+
+    public void evict(String username) {
+        loadGenerations.compute(username, (u, load) -> {
+            principals.remove(username);
+            if (load != null) {
+                load.generation++;
+            }
+            return load;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        event.getUsernames().forEach(this::evict);
+    }
+
     public UserDetails loaUserById(Long userId){
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with userId: "+userId));
@@ -0,0 +1,85 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.DistributionListRequest;
+import com.emailapp.emailservice.dto.response.DistributionListResponse;
+import com.emailapp.emailservice.entity.DistributionList;
+import com.emailapp.emailservice.repository.DistributionListMemberRepository;
+import com.emailapp.emailservice.repository.DistributionListRepository;
+import com.emailapp.emailservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class DistributionListService {
+
+    @Autowired
+    private DistributionListRepository distributionListRepository;
+
+    @Autowired
+    private DistributionListMemberRepository memberRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Transactional
+    public DistributionListResponse createList(Long ownerId, DistributionListRequest request) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new RuntimeException("User not found with ID: " + ownerId);
+        }
+        String name = request.getName().trim();
+        if (distributionListRepository.existsByOwnerUserIdAndName(ownerId, name)) {
+            throw new RuntimeException("A distribution list named " + name + " already exists");
+        }
+
+        DistributionList list = new DistributionList();
+        list.setOwner(userRepository.getReferenceById(ownerId));
+        list.setName(name);
+        list.setDescription(request.getDescription());
+        return convertToResponse(distributionListRepository.save(list), 0L);
+    }
+
+    public List<DistributionListResponse> getLists(Long ownerId) {
+        return distributionListRepository.findByOwnerId(ownerId).stream()
+                .map(list -> convertToResponse(list, memberRepository.countByListId(list.getListId())))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void deleteList(Long ownerId, Long listId) {
+        DistributionList list = findOwned(ownerId, listId);
+        memberRepository.deleteByListId(list.getListId());
+        distributionListRepository.delete(list);
+    }
+
+    // Returns how many of the emails were added; unknown emails and existing members are skipped
+    @Transactional
+    public int addMembers(Long ownerId, Long listId, Collection<String> emails) {
+        DistributionList list = findOwned(ownerId, listId);
+        return memberRepository.addByEmails(list.getListId(), normalize(emails));
+    }
+
+    @Transactional
+    public int removeMembers(Long ownerId, Long listId, Collection<String> emails) {
+        DistributionList list = findOwned(ownerId, listId);
+        return memberRepository.removeByEmails(list.getListId(), normalize(emails));
+    }
+
+    private DistributionList findOwned(Long ownerId, Long listId) {
+        return distributionListRepository.findOwned(listId, ownerId)
+                .orElseThrow(() -> new RuntimeException("Distribution list not found with ID: " + listId));
+    }
+
+    private List<String> normalize(Collection<String> emails) {
+        return emails.stream().map(String::trim).distinct().collect(Collectors.toList());
+    }
+
+    private DistributionListResponse convertToResponse(DistributionList list, Long memberCount) {
+        return new DistributionListResponse(
+                list.getListId(), list.getName(), list.getDescription(), memberCount, list.getCreatedAt());
+    }
+}
@@ -0,0 +1,58 @@
+package com.emailapp.emailservice.service;
+
+import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.GenerateContentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "ai.provider", havingValue = "gemini", matchIfMissing = true)
+public class GeminiAiProvider implements AiProvider {
+
+    private static final String MODEL_NAME = "gemini-2.5-flash";
+
+    private final Client geminiClient;
+
+    public GeminiAiProvider(@Value("${gemini.api.key}") String apiKey) {
+        this.geminiClient = Client.builder().apiKey(apiKey).build();
+    }
+
+    @Override
+    public String modelName() {
+        return MODEL_NAME;
+    }
+
+    @Override
+    public String generate(String prompt) {
+        GenerateContentResponse response = geminiClient.models.generateContent(MODEL_NAME, prompt, null);
+        if (response == null || response.text() == null) {
+            throw new IllegalStateException("Gemini returned no content");
+        }
+        return response.text();
+    }
+
+    @Override
+    public String generateStream(String prompt, Consumer<String> onChunk, BooleanSupplier cancelled) {
+        StringBuilder text = new StringBuilder();
+        // Closing the stream drops the HTTP response, so an abandoned stream stops consuming the model
+        try (ResponseStream<GenerateContentResponse> stream =
+                     geminiClient.models.generateContentStream(MODEL_NAME, prompt, null)) {
+            for (GenerateContentResponse chunk : stream) {
+                if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                String piece = chunk.text();
+                if (piece != null && !piece.isEmpty()) {
+                    text.append(piece);
+                    onChunk.accept(piece);
+                }
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.BodyEncoding;
+import com.emailapp.emailservice.entity.MailBody;
+import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.entity.MaintenanceState;
+import com.emailapp.emailservice.repository.MailBodyRepository;
+import com.emailapp.emailservice.repository.MaintenanceStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Archival (opt-in, mail.archive.enabled): inbox and sent rows received before the start of
+ * the month after-months back move to ARCHIVED with isArchived set, one chunk per transaction
+ * (driven by MailArchiveWorker). Their unread counts move with them, and their bodies are
+ * recompressed for the cold tier.
+ *
+ * Once a run finds nothing left to archive before the cutoff, the cutoff is recorded in
+ * maintenance_state. Inbox and sent listings then only read rows received since that recorded
+ * cutoff, so on a partitioned user_mailbox they only touch those months' partitions; rows not yet
+ * archived (a run still in progress, a new month not reached yet) are never cut off. Instances
+ * re-read the recorded cutoff every minute; until then they use the older one, which only reads
+ * more. A mail moved back out of the archive is hidden from its folder and archived again by the
+ * next run.
+ */
+@Service
+public class MailArchiveService {
+
+    // Listing lower bound when nothing is archived
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    static final String ARCHIVE_STATE = "mail-archive";
+    private static final long ARCHIVE_STATE_REFRESH_MS = 60_000;
+
+    // Locks the chunk (skipping rows a user is changing), archives it and returns what it was
+    private static final String ARCHIVE_CHUNK =
+            "WITH batch AS (" +
+            "  SELECT id, user_id, mail_id, folder, is_read, received_at FROM user_mailbox " +
+            "  WHERE folder IN ('INBOX', 'SENT') AND is_deleted = false AND received_at < ? " +
+            "  ORDER BY received_at LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "archived AS (" +
+            "  UPDATE user_mailbox um SET folder = 'ARCHIVED', is_archived = true FROM batch b " +
+            "  WHERE um.id = b.id AND um.received_at = b.received_at) " +
+            "SELECT user_id, mail_id, folder, is_read FROM batch";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MailBodyRepository mailBodyRepository;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private MaintenanceStateRepository maintenanceStateRepository;
+
+    @Value("${mail.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mail.archive.after-months:12}")
+    private int afterMonths;
+
+    // The recorded cutoff, as last read on this instance
+    private volatile LocalDateTime archivedBefore = ALL_TIME;
+    private volatile long archivedBeforeReadAt;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Rows received before this are archived
+    public LocalDateTime archiveCutoff() {
+        return YearMonth.now().minusMonths(afterMonths).atDay(1).atStartOfDay();
+    }
+
+    // Oldest receivedAt a folder listing needs to read
+    public LocalDateTime listingLowerBound(MailFolder folder) {
+        if (!enabled || (folder != MailFolder.INBOX && folder != MailFolder.SENT)) {
+            return ALL_TIME;
+        }
+        long now = System.currentTimeMillis();
+        if (now - archivedBeforeReadAt > ARCHIVE_STATE_REFRESH_MS) {
+            archivedBeforeReadAt = now;
+            archivedBefore = maintenanceStateRepository.findById(ARCHIVE_STATE)
+                    .map(MaintenanceState::getMark)
+                    .orElse(ALL_TIME);
+        }
+        return archivedBefore;
+    }
+
+    // Archives up to chunkSize rows; returns how many. PostgreSQL only.
+    @Transactional
+    public int archiveChunk(int chunkSize) {
+        Map<MailFolder, Map<Long, Long>> unreadByFolder = new EnumMap<>(MailFolder.class);
+        Set<Long> mailIds = new LinkedHashSet<>();
+        int[] archived = {0};
+        jdbcTemplate.query(ARCHIVE_CHUNK, rs -> {
+            archived[0]++;
+            mailIds.add(rs.getLong("mail_id"));
+            if (!rs.getBoolean("is_read")) {
+                unreadByFolder.computeIfAbsent(MailFolder.valueOf(rs.getString("folder")), f -> new HashMap<>())
+                        .merge(rs.getLong("user_id"), 1L, Long::sum);
+            }
+        }, Timestamp.valueOf(archiveCutoff()), chunkSize);
+
+        unreadByFolder.forEach((folder, unreadByUser) -> unreadByUser.forEach((userId, count) -> {
+            mailboxCounterService.adjustUnread(userId, folder, -count);
+            mailboxCounterService.adjustUnread(userId, MailFolder.ARCHIVED, count);
+        }));
+        if (!mailIds.isEmpty()) {
+            compactBodies(mailIds);
+        }
+        if (archived[0] == 0) {
+            recordArchivedBefore(archiveCutoff());
+        }
+        return archived[0];
+    }
+
+    // Rows the last chunk skipped (locked by a user) keep the previous cutoff until a later run
+    private void recordArchivedBefore(LocalDateTime cutoff) {
+        Boolean pending = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM user_mailbox WHERE folder IN ('INBOX', 'SENT') " +
+                "AND is_deleted = false AND received_at < ?)", Boolean.class, Timestamp.valueOf(cutoff));
+        if (Boolean.TRUE.equals(pending)) {
+            return;
+        }
+        maintenanceStateRepository.createIfAbsent(ARCHIVE_STATE);
+        // Another instance holding it is recording the same cutoff
+        maintenanceStateRepository.lockIfFree(ARCHIVE_STATE).ifPresent(state -> {
+            if (state.getMark() == null || state.getMark().isBefore(cutoff)) {
+                state.setMark(cutoff);
+            }
+        });
+        archivedBefore = cutoff;
+    }
+
+    // Shared bodies are compacted too; a recent mail using one just decompresses it on open
+    private void compactBodies(Set<Long> mailIds) {
+        for (MailBody body : mailBodyRepository.findByMailIdsAndEncoding(mailIds, BodyEncoding.PLAIN)) {
+            byte[] compressed = mailBodyCodec.compactForArchive(body);
+            if (compressed != null) {
+                mailBodyRepository.reencode(body.getBodyId(), BodyEncoding.PLAIN, BodyEncoding.GZIP, compressed);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.emailapp.emailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Archives old inbox and sent rows in the background (see MailArchiveService), throttled by
+ * BackgroundChunkRunner like mailbox cleanup. Off unless mail.archive.enabled is set.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.archive.enabled", havingValue = "true")
+public class MailArchiveWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(MailArchiveWorker.class);
+
+    @Autowired
+    private MailArchiveService mailArchiveService;
+
+    @Autowired
+    private BackgroundChunkRunner chunkRunner;
+
+    @Value("${mail.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${mail.archive.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    @Value("${mail.archive.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    @Value("${mail.archive.max-pool-usage:0.5}")
+    private double maxPoolUsage;
+
+    @Scheduled(
+            initialDelayString = "${mail.archive.initial-delay-ms:120000}",
+            fixedDelayString = "${mail.archive.interval-ms:3600000}"
+    )
+    public void run() {
+        try {
+            int archived = chunkRunner.run(() -> mailArchiveService.archiveChunk(chunkSize),
+                    maxChunksPerRun, chunkPauseMs, maxPoolUsage);
+            if (archived > 0) {
+                log.info("Mail archive: {} mailbox rows archived", archived);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Mail archive failed: {}", e.getMessage());
+        }
+    }
+}
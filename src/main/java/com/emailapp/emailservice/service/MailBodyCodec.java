@@ -0,0 +1,91 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.BodyEncoding;
+import com.emailapp.emailservice.entity.MailBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes mail content for mail_bodies: UTF-8, gzip-compressed when the content is at least
+ * mail.body.compress-threshold-bytes long and compression actually makes it smaller.
+ */
+@Component
+public class MailBodyCodec {
+
+    private final int compressThresholdBytes;
+
+    public MailBodyCodec(@Value("${mail.body.compress-threshold-bytes:1024}") int compressThresholdBytes) {
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    public MailBody encode(String content) {
+        byte[] plain = (content != null ? content : "").getBytes(StandardCharsets.UTF_8);
+
+        MailBody body = new MailBody();
+        body.setOriginalSize(plain.length);
+        body.setEncoding(BodyEncoding.PLAIN);
+        body.setData(plain);
+
+        if (plain.length >= compressThresholdBytes) {
+            byte[] compressed = gzip(plain);
+            if (compressed.length < plain.length) {
+                body.setEncoding(BodyEncoding.GZIP);
+                body.setData(compressed);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Cold-tier encoding for the bodies of archived mail: gzip at the best compression level,
+     * whatever the size. Returns the compressed data, or null when the body is already
+     * compressed or would not get smaller.
+     */
+    public byte[] compactForArchive(MailBody body) {
+        if (body.getEncoding() != BodyEncoding.PLAIN) {
+            return null;
+        }
+        byte[] compressed = gzip(body.getData(), Deflater.BEST_COMPRESSION);
+        return compressed.length < body.getData().length ? compressed : null;
+    }
+
+    public String decode(MailBody body) {
+        byte[] data = body.getEncoding() == BodyEncoding.GZIP ? gunzip(body.getData()) : body.getData();
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        return gzip(data, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private static byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt mail body", e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.MailBody;
+import com.emailapp.emailservice.repository.MailBodyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reference-counted, content-addressed mail bodies. A mail acquires the body for its content
+ * (creating it on first use) and cleanup releases it; a body is deleted with its last mail.
+ * Storage then grows with unique content, not with the number of times it was sent.
+ *
+ * Only content of at least mail.body.dedup-min-bytes is shared. Short bodies ("Thanks!", "See
+ * you then") repeat most, so sharing them would make every send of one update the same body row,
+ * serializing those sends on its lock, to save a few bytes each; they are stored unshared instead.
+ *
+ * Both operations must run inside the caller's transaction. Acquire is PostgreSQL only.
+ */
+@Component
+public class MailBodyStore {
+
+    // Repeat content: bump the count without encoding (or compressing) the content again
+    private static final String ADD_REFERENCE =
+            "UPDATE mail_bodies SET ref_count = ref_count + 1 WHERE content_hash = ? RETURNING body_id";
+
+    // First use; ON CONFLICT covers a concurrent first use of the same content
+    private static final String INSERT_BODY =
+            "INSERT INTO mail_bodies (content_hash, encoding, data, original_size, ref_count) " +
+            "VALUES (?, ?, ?, ?, 1) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = mail_bodies.ref_count + 1 " +
+            "RETURNING body_id";
+
+    // Below the dedup threshold: no hash, so never shared (and never merged by the legacy dedup)
+    private static final String INSERT_UNSHARED_BODY =
+            "INSERT INTO mail_bodies (encoding, data, original_size, ref_count) VALUES (?, ?, ?, 1) " +
+            "RETURNING body_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MailBodyRepository mailBodyRepository;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    @Value("${mail.body.dedup-min-bytes:2048}")
+    private int dedupMinBytes;
+
+    public int getDedupMinBytes() {
+        return dedupMinBytes;
+    }
+
+    // Returns the ID of the body holding this content, with one more reference on it
+    public Long acquire(String content) {
+        if ((content != null ? content : "").getBytes(StandardCharsets.UTF_8).length < dedupMinBytes) {
+            MailBody body = mailBodyCodec.encode(content);
+            return jdbcTemplate.queryForObject(INSERT_UNSHARED_BODY, Long.class,
+                    body.getEncoding().name(), body.getData(), body.getOriginalSize());
+        }
+
+        String hash = contentHash(content);
+        List<Long> existing = jdbcTemplate.query(ADD_REFERENCE, SingleColumnRowMapper.newInstance(Long.class), hash);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+
+        MailBody body = mailBodyCodec.encode(content);
+        return jdbcTemplate.queryForObject(INSERT_BODY, Long.class,
+                hash, body.getEncoding().name(), body.getData(), body.getOriginalSize());
+    }
+
+    // One reference per entry (a body listed twice loses two); bodies left unreferenced are deleted
+    public void release(Collection<Long> bodyIds) {
+        if (bodyIds.isEmpty()) {
+            return;
+        }
+        // Sorted so concurrent releases lock body rows in the same order
+        Map<Long, Long> counts = bodyIds.stream()
+                .collect(Collectors.groupingBy(id -> id, TreeMap::new, Collectors.counting()));
+        counts.forEach((bodyId, count) -> mailBodyRepository.releaseReferences(bodyId, count.intValue()));
+        mailBodyRepository.deleteUnreferenced(counts.keySet());
+    }
+
+    public static String contentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((content != null ? content : "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
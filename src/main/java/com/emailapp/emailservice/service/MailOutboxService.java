@@ -0,0 +1,158 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.SendMailRequest;
+import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.dto.response.OutboxResponse;
+import com.emailapp.emailservice.entity.MailOutbox;
+import com.emailapp.emailservice.entity.OutboxStatus;
+import com.emailapp.emailservice.repository.MailOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Accepted-then-delivered sending. enqueue() only writes a compact outbox record;
+ * MailOutboxWorker claims records in batches and delivers them through MailService.sendMail.
+ * A claim is identified by its lockedAt: a worker only acts on a record that is still PROCESSING
+ * under its own claim, so a worker that stalls past the processing timeout cannot deliver (or
+ * reschedule) a record another worker has since reclaimed.
+ */
+@Service
+public class MailOutboxService {
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.processing-timeout-ms:300000}")
+    private long processingTimeoutMs;
+
+    public record Claim(Long outboxId, LocalDateTime lockedAt) {
+    }
+
+    @Transactional
+    public OutboxResponse enqueue(Long senderId, SendMailRequest request) {
+        MailOutbox outbox = new MailOutbox();
+        outbox.setSenderId(senderId);
+        try {
+            outbox.setPayload(objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to queue mail: " + e.getMessage());
+        }
+        return convertToResponse(mailOutboxRepository.save(outbox));
+    }
+
+    public OutboxResponse getStatus(Long outboxId) {
+        MailOutbox outbox = mailOutboxRepository.findById(outboxId)
+                .orElseThrow(() -> new RuntimeException("Outbox entry not found with ID: " + outboxId));
+        return convertToResponse(outbox);
+    }
+
+    // Locks up to `limit` due records and marks them PROCESSING
+    @Transactional
+    public List<Claim> claimBatch(int limit) {
+        // At the column's precision, so the claim compares equal once read back
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Long> ids = mailOutboxRepository.lockDeliverableIds(
+                now, now.minusNanos(processingTimeoutMs * 1_000_000), limit);
+        if (!ids.isEmpty()) {
+            mailOutboxRepository.markClaimed(ids, OutboxStatus.PROCESSING, now);
+        }
+        return ids.stream().map(id -> new Claim(id, now)).toList();
+    }
+
+    // The mailbox fan-out and the DELIVERED mark commit together, so a record is never
+    // reported delivered without its mail, and a crash before commit simply redelivers it
+    @Transactional
+    public void deliver(Claim claim) {
+        MailOutbox outbox = mailOutboxRepository.lockById(claim.outboxId())
+                .orElseThrow(() -> new RuntimeException("Outbox entry not found with ID: " + claim.outboxId()));
+        if (!isClaimedBy(outbox, claim)) {
+            return;
+        }
+
+        SendMailRequest request;
+        try {
+            request = objectMapper.readValue(outbox.getPayload(), SendMailRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new PermanentDeliveryException("Corrupt outbox payload: " + e.getMessage());
+        }
+
+        MailResponse mail = mailService.sendMail(outbox.getSenderId(), request);
+
+        outbox.setStatus(OutboxStatus.DELIVERED);
+        outbox.setMailId(mail.getMailId());
+        outbox.setDeliveredAt(LocalDateTime.now());
+        outbox.setLockedAt(null);
+        outbox.setLastError(null);
+        mailOutboxRepository.save(outbox);
+    }
+
+    // Runs after deliver() rolled back, so it needs its own transaction. A PermanentDeliveryException
+    // fails the record at once instead of using up its attempts.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordFailure(Claim claim, Exception failure) {
+        MailOutbox outbox = mailOutboxRepository.lockById(claim.outboxId()).orElse(null);
+        if (outbox == null || !isClaimedBy(outbox, claim)) {
+            return;
+        }
+        int attempts = outbox.getAttempts() + 1;
+        outbox.setAttempts(attempts);
+        outbox.setLockedAt(null);
+        String error = failure.getMessage();
+        outbox.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+
+        if (attempts >= maxAttempts || failure instanceof PermanentDeliveryException) {
+            outbox.setStatus(OutboxStatus.FAILED);
+        } else {
+            // Exponential backoff: 2s, 4s, 8s... capped at 5 minutes
+            long delaySeconds = Math.min(1L << attempts, 300L);
+            outbox.setStatus(OutboxStatus.PENDING);
+            outbox.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+        }
+        mailOutboxRepository.save(outbox);
+    }
+
+    // Claims a worker took but never started (it was shutting down): due again at once
+    @Transactional
+    public void releaseClaims(List<Claim> claims) {
+        claims.stream()
+                .collect(Collectors.groupingBy(Claim::lockedAt,
+                        Collectors.mapping(Claim::outboxId, Collectors.toList())))
+                .forEach((lockedAt, ids) -> mailOutboxRepository.releaseClaimed(
+                        ids, OutboxStatus.PROCESSING, lockedAt, OutboxStatus.PENDING));
+    }
+
+    private boolean isClaimedBy(MailOutbox outbox, Claim claim) {
+        return outbox.getStatus() == OutboxStatus.PROCESSING && claim.lockedAt().equals(outbox.getLockedAt());
+    }
+
+    private OutboxResponse convertToResponse(MailOutbox outbox) {
+        OutboxResponse response = new OutboxResponse();
+        response.setOutboxId(outbox.getId());
+        response.setStatus(outbox.getStatus().toString());
+        response.setAttempts(outbox.getAttempts());
+        response.setMailId(outbox.getMailId());
+        response.setLastError(outbox.getLastError());
+        response.setCreatedAt(outbox.getCreatedAt());
+        response.setDeliveredAt(outbox.getDeliveredAt());
+        return response;
+    }
+}
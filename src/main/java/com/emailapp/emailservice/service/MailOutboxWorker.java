@@ -0,0 +1,95 @@
+package com.emailapp.emailservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the mail outbox on virtual threads. The semaphore caps in-flight deliveries
+ * (each holds a DB connection), and a poll only claims as many records as there are free
+ * permits, so a burst of sends queues up in the table instead of in memory. On shutdown,
+ * deliveries in flight get shutdown-timeout-ms to finish; any cut off after that are claimed
+ * again once the processing timeout passes. Records claimed but not yet started are handed
+ * back at once.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class MailOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(MailOutboxWorker.class);
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MailOutboxWorker(@Value("${mail.outbox.concurrency:4}") int concurrency) {
+        this.permits = new Semaphore(concurrency);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:250}")
+    public void poll() {
+        int available = Math.min(permits.availablePermits(), batchSize);
+        if (available == 0 || executor.isShutdown()) {
+            return;
+        }
+
+        List<MailOutboxService.Claim> claimed;
+        try {
+            claimed = mailOutboxService.claimBatch(available);
+        } catch (Exception e) {
+            log.error("Outbox claim failed: {}", e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < claimed.size(); i++) {
+            MailOutboxService.Claim claim = claimed.get(i);
+            permits.acquireUninterruptibly();
+            try {
+                executor.submit(() -> {
+                    try {
+                        mailOutboxService.deliver(claim);
+                    } catch (Exception e) {
+                        log.warn("Outbox delivery {} failed: {}", claim.outboxId(), e.getMessage());
+                        mailOutboxService.recordFailure(claim, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shut down since the claim: hand the rest back rather than leave them to time out
+                permits.release();
+                mailOutboxService.releaseClaims(claimed.subList(i, claimed.size()));
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Outbox deliveries still running after {} ms; interrupting them", shutdownTimeoutMs);
+            executor.shutdownNow();
+        }
+    }
+}
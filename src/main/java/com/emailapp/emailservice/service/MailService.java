@@ -1,20 +1,43 @@
 package com.emailapp.emailservice.service;
 
+import com.emailapp.emailservice.dto.request.BulkMailActionRequest;
+import com.emailapp.emailservice.dto.request.ReplyMailRequest;
 import com.emailapp.emailservice.dto.request.SendMailRequest;
+import com.emailapp.emailservice.dto.response.MailPageResponse;
 import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.dto.response.MailSearchResponse;
 import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.event.MailboxChangedEvent;
 import com.emailapp.emailservice.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class MailService {
 
+    private static final Logger log = LoggerFactory.getLogger(MailService.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RECIPIENTS = 1000;
+
     @Autowired
     private MailRepository mailRepository;
 
@@ -23,128 +46,359 @@ public class MailService {
 
     @Autowired
     private UserMailboxRepository userMailboxRepository;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private MailSearchRepository mailSearchRepository;
+
+    @Autowired
+    private RecipientDirectory recipientDirectory;
+
+    @Autowired
+    private MailBodyRepository mailBodyRepository;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    @Autowired
+    private MailBodyStore mailBodyStore;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private ThreadSummaryService threadSummaryService;
+
+    @Autowired
+    private MailArchiveService mailArchiveService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Transactional
-    public Mail sendMail(Long senderId, SendMailRequest request) {
-        System.out.println("=== SENDING MAIL ===");
-        System.out.println("Sender ID: " + senderId);
-        System.out.println("Request: " + request);
+    public MailResponse sendMail(Long senderId, SendMailRequest request) {
+        return sendMail(senderId, request, null);
+    }
+
+    /**
+     * Replies to a mail the sender can see, in its thread. Goes to the original sender, or for a
+     * reply to one's own mail to its To recipients; replyAll adds the other To and Cc recipients.
+     */
+    @Transactional
+    public MailResponse replyToMail(Long senderId, Long mailId, ReplyMailRequest reply) {
+        if (userMailboxRepository.findMailRows(senderId, mailId).isEmpty()) {
+            throw new RuntimeException("Mail not found in mailbox");
+        }
+        Mail original = mailRepository.findById(mailId)
+                .orElseThrow(() -> new RuntimeException("Mail not found with ID: " + mailId));
+        boolean ownMail = original.getSender().getUserId().equals(senderId);
+
+        SendMailRequest request = new SendMailRequest();
+        request.setSubject(reply.getSubject() != null && !reply.getSubject().isBlank()
+                ? reply.getSubject() : replySubject(original.getSubject()));
+        request.setContent(reply.getContent());
+        request.setAttachmentIds(reply.getAttachmentIds());
+        if (!ownMail) {
+            request.getTo().add(original.getSender().getEmail());
+        }
+        if (ownMail || reply.isReplyAll()) {
+            // Someone replying to a mail they received does not reply to themselves
+            Long skipUserId = ownMail ? null : senderId;
+            for (Object[] row : userMailboxRepository.findRecipientEmails(mailId, skipUserId,
+                    List.of(MailRole.RECIPIENT, MailRole.CC))) {
+                String email = (String) row[0];
+                if (row[1] == MailRole.RECIPIENT) {
+                    request.getTo().add(email);
+                } else if (reply.isReplyAll()) {
+                    request.getCc().add(email);
+                }
+            }
+        }
+        return sendMail(senderId, request, original);
+    }
+
+    private static String replySubject(String subject) {
+        return subject.regionMatches(true, 0, "Re:", 0, 3) ? subject : "Re: " + subject;
+    }
+
+    private MailResponse sendMail(Long senderId, SendMailRequest request, Mail parent) {
+        // Sender and recipients come from the in-memory directory; users are attached as
+        // references, so a send in the common case reads nothing from the users table
+        RecipientDirectory.Entry sender = recipientDirectory.findById(senderId)
+                .orElseThrow(() -> new PermanentDeliveryException("Sender not found with ID: " + senderId));
+
+        Map<String, MailRole> recipientRoles = resolveRecipientRoles(request);
+        Map<String, RecipientDirectory.Entry> recipientsByEmail = recipientDirectory.resolve(recipientRoles.keySet());
+
+        for (String email : recipientRoles.keySet()) {
+            if (!recipientsByEmail.containsKey(email)) {
+                throw new PermanentDeliveryException("Recipient not found with email: " + email);
+            }
+        }
 
-        // Find sender
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Sender not found with ID: " + senderId));
+        Mail mail = createMail(sender, request.getSubject(), request.getContent(), "NORMAL",
+                !request.getAttachmentIds().isEmpty(), parent);
+        if (mail.getHasAttachments()) {
+            // Recipients share the mail, so each file is linked (and stored) once however many there are
+            attachmentService.attachToMail(senderId, request.getAttachmentIds(), mail);
+        }
 
-        // Find recipient by email
-        User recipient = userRepository.findByEmail(request.getRecipientEmail())
-                .orElseThrow(() -> new RuntimeException("Recipient not found with email: " + request.getRecipientEmail()));
+        // One UserMailbox entry per recipient (their inbox) plus the sender's sent copy,
+        // written as JDBC batches
+        List<UserMailbox> mailboxes = new ArrayList<>(recipientRoles.size() + 1);
+        List<Long> recipientIds = new ArrayList<>(recipientRoles.size());
+        for (Map.Entry<String, MailRole> entry : recipientRoles.entrySet()) {
+            Long recipientId = recipientsByEmail.get(entry.getKey()).userId();
+            mailboxes.add(newMailbox(mail, userRepository.getReferenceById(recipientId), entry.getValue(), MailFolder.INBOX, false));
+            recipientIds.add(recipientId);
+        }
+        // Sender has already "read" it
+        UserMailbox sentCopy = newMailbox(mail, mail.getSender(), MailRole.SENDER, MailFolder.SENT, true);
+        mailboxes.add(sentCopy);
+
+        userMailboxRepository.saveAll(mailboxes);
+        mailboxCounterService.adjustUnread(recipientIds, MailFolder.INBOX, 1);
+        recordOnThread(mail, sender, recipientRoles, recipientIds);
+
+        // Pushed to connected recipients once the transaction commits. One payload goes to all of
+        // them, so it carries no mailbox ID: each recipient's row has its own
+        MailResponse received = toMailResponse(mail, sender, mailboxes.get(0), MailFolder.INBOX, false);
+        received.setMailboxId(null);
+        eventPublisher.publishEvent(new MailboxChangedEvent(
+                MailboxChangedEvent.Type.MAIL_RECEIVED,
+                recipientIds,
+                List.of(mail.getMailId()),
+                received
+        ));
+        log.debug("Mail {} sent by user {} to {} recipients", mail.getMailId(), senderId, recipientIds.size());
+
+        // The sender's own SENT row
+        return toMailResponse(mail, sender, sentCopy, MailFolder.SENT, true);
+    }
 
-        System.out.println("Sender: " + sender.getUsername() + " (" + sender.getEmail() + ")");
-        System.out.println("Recipient: " + recipient.getUsername() + " (" + recipient.getEmail() + ")");
+    /**
+     * The mail and the sender's SENT copy for a distribution-list broadcast. Recipients' rows are
+     * written afterwards in chunks by BroadcastService.
+     */
+    @Transactional
+    public MailResponse createBroadcastMail(Long senderId, String subject, String content) {
+        RecipientDirectory.Entry sender = recipientDirectory.findById(senderId)
+                .orElseThrow(() -> new PermanentDeliveryException("Sender not found with ID: " + senderId));
+
+        Mail mail = createMail(sender, subject, content, "BROADCAST", false, null);
+        UserMailbox sentCopy = userMailboxRepository.save(
+                newMailbox(mail, mail.getSender(), MailRole.SENDER, MailFolder.SENT, true));
+        // Members are added to the thread summaries as their chunks are delivered
+        threadSummaryService.recordMessage(mail.getThreadId(), mail.getMailId(), mail.getSentAt(),
+                List.of(sender.email()), Map.of(sender.userId(), 1), Map.of());
+        return toMailResponse(mail, sender, sentCopy, MailFolder.SENT, true);
+    }
 
-        // Create mail
+    // A reply joins its parent's thread; any other mail starts a new one
+    private Mail createMail(RecipientDirectory.Entry sender, String subject, String content,
+                            String mailType, boolean hasAttachments, Mail parent) {
         Mail mail = new Mail();
-        mail.setSubject(request.getSubject());
-        mail.setContent(request.getContent());
-        mail.setSender(sender);
-        mail.setMailType("NORMAL");
-        mail.setHasAttachments(false);
+        mail.setSubject(subject);
+        if (parent != null) {
+            mail.setInReplyTo(parent.getMailId());
+        }
+        mail.setThreadId(parent != null && parent.getThreadId() != null
+                ? parent.getThreadId() : threadSummaryService.startThread(subject));
+        // Shared with every other mail carrying the same content
+        mail.setBody(mailBodyRepository.getReferenceById(mailBodyStore.acquire(content)));
+        mail.setSender(userRepository.getReferenceById(sender.userId()));
+        mail.setMailType(mailType);
+        mail.setHasAttachments(hasAttachments);
         // sentAt is set by @PrePersist
 
-        // Save mail first
         mail = mailRepository.save(mail);
-        System.out.println("Mail saved with ID: " + mail.getMailId());
-
-        // Create UserMailbox entry for RECIPIENT (their inbox)
-        UserMailbox recipientMailbox = new UserMailbox();
-        recipientMailbox.setMail(mail);
-        recipientMailbox.setUser(recipient);
-        recipientMailbox.setMailRole(MailRole.RECIPIENT);
-        recipientMailbox.setFolder(MailFolder.INBOX);
-        recipientMailbox.setIsRead(false);
-        recipientMailbox.setIsStarred(false);
-        recipientMailbox.setIsDeleted(false);
-        recipientMailbox.setIsArchived(false);
-        // receivedAt is set by @PrePersist
+        mailSearchRepository.index(mail.getMailId(), mail.getSubject(), content);
+        return mail;
+    }
 
-        userMailboxRepository.save(recipientMailbox);
-        System.out.println("✅ Recipient mailbox entry created (INBOX)");
+    // Thread totals, plus one summary row per participant: each recipient got an unread row,
+    // the sender a read one (both, for someone who mailed themselves)
+    private void recordOnThread(Mail mail, RecipientDirectory.Entry sender,
+                                Map<String, MailRole> recipientRoles, List<Long> recipientIds) {
+        Map<Long, Integer> rowsByUser = new LinkedHashMap<>();
+        Map<Long, Integer> unreadByUser = new LinkedHashMap<>();
+        for (Long recipientId : recipientIds) {
+            rowsByUser.merge(recipientId, 1, Integer::sum);
+            unreadByUser.merge(recipientId, 1, Integer::sum);
+        }
+        rowsByUser.merge(sender.userId(), 1, Integer::sum);
+
+        // Bcc recipients are not shown as participants
+        List<String> participants = new ArrayList<>();
+        participants.add(sender.email());
+        recipientRoles.forEach((email, role) -> {
+            if (role != MailRole.BCC) {
+                participants.add(email);
+            }
+        });
+        threadSummaryService.recordMessage(mail.getThreadId(), mail.getMailId(), mail.getSentAt(),
+                participants, rowsByUser, unreadByUser);
+    }
 
-        // Create UserMailbox entry for SENDER (their sent folder)
-        UserMailbox senderMailbox = new UserMailbox();
-        senderMailbox.setMail(mail);
-        senderMailbox.setUser(sender);
-        senderMailbox.setMailRole(MailRole.SENDER);
-        senderMailbox.setFolder(MailFolder.SENT);
-        senderMailbox.setIsRead(true);  // Sender has already "read" it
-        senderMailbox.setIsStarred(false);
-        senderMailbox.setIsDeleted(false);
-        senderMailbox.setIsArchived(false);
+    // The listing row for one mailbox copy of a freshly sent mail
+    private MailResponse toMailResponse(Mail mail, RecipientDirectory.Entry sender, UserMailbox mailbox,
+                                        MailFolder folder, boolean read) {
+        return new MailResponse(
+                mailbox.getId(), mailbox.getReceivedAt(), mail.getMailId(),
+                mail.getSubject(), sender.firstName(), sender.lastName(),
+                sender.email(), mail.getSentAt(), read, false, folder, mail.getHasAttachments(),
+                mail.getThreadId()
+        );
+    }
 
-        userMailboxRepository.save(senderMailbox);
-        System.out.println("✅ Sender mailbox entry created (SENT)");
+    // To, then Cc, then Bcc: an address listed twice keeps its most visible role
+    private Map<String, MailRole> resolveRecipientRoles(SendMailRequest request) {
+        Map<String, MailRole> roles = new LinkedHashMap<>();
+        if (request.getRecipientEmail() != null && !request.getRecipientEmail().isBlank()) {
+            roles.putIfAbsent(request.getRecipientEmail().trim(), MailRole.RECIPIENT);
+        }
+        request.getTo().forEach(email -> roles.putIfAbsent(email.trim(), MailRole.RECIPIENT));
+        request.getCc().forEach(email -> roles.putIfAbsent(email.trim(), MailRole.CC));
+        request.getBcc().forEach(email -> roles.putIfAbsent(email.trim(), MailRole.BCC));
 
-        System.out.println("=== MAIL SENT SUCCESSFULLY ===\n");
+        if (roles.isEmpty()) {
+            throw new PermanentDeliveryException("At least one recipient is required");
+        }
+        if (roles.size() > MAX_RECIPIENTS) {
+            throw new PermanentDeliveryException("Too many recipients (max " + MAX_RECIPIENTS + ")");
+        }
+        return roles;
+    }
 
-        return mail;
+    private UserMailbox newMailbox(Mail mail, User user, MailRole role, MailFolder folder, boolean read) {
+        UserMailbox mailbox = new UserMailbox();
+        mailbox.setMail(mail);
+        mailbox.setUser(user);
+        mailbox.setMailRole(role);
+        mailbox.setFolder(folder);
+        mailbox.setIsRead(read);
+        mailbox.setIsStarred(false);
+        mailbox.setIsDeleted(false);
+        mailbox.setIsArchived(false);
+        // receivedAt is set by @PrePersist
+        return mailbox;
     }
 
-    public List<MailResponse> getInbox(Long userId) {
-        List<UserMailbox> mailboxes = userMailboxRepository
-                .findByUserUserIdAndFolderAndIsDeletedFalse(userId, MailFolder.INBOX);
+    public MailPageResponse getInbox(Long userId, String cursor, Integer limit) {
+        return getFolderPage(userId, MailFolder.INBOX, cursor, limit);
+    }
 
-        return mailboxes.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public MailPageResponse getSentMails(Long userId, String cursor, Integer limit) {
+        return getFolderPage(userId, MailFolder.SENT, cursor, limit);
     }
 
-    public List<MailResponse> getSentMails(Long userId) {
-        List<UserMailbox> mailboxes = userMailboxRepository
-                .findByUserUserIdAndFolderAndIsDeletedFalse(userId, MailFolder.SENT);
+    public MailPageResponse getTrash(Long userId, String cursor, Integer limit) {
+        return getFolderPage(userId, MailFolder.TRASH, cursor, limit);
+    }
 
-        return mailboxes.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public MailPageResponse getArchived(Long userId, String cursor, Integer limit) {
+        return getFolderPage(userId, MailFolder.ARCHIVED, cursor, limit);
     }
 
-    public List<MailResponse> getTrash(Long userId) {
-        List<UserMailbox> mailboxes = userMailboxRepository
-                .findByUserUserIdAndFolderAndIsDeletedFalse(userId, MailFolder.TRASH);
+    // Keyset pagination on (receivedAt, id): cost stays the same on page 1 and page 1000
+    private MailPageResponse getFolderPage(Long userId, MailFolder folder, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        LocalDateTime receivedSince = mailArchiveService.listingLowerBound(folder);
+
+        List<MailResponse> mails;
+        if (cursor == null || cursor.isBlank()) {
+            mails = userMailboxRepository.findFolderPage(userId, folder, receivedSince, pageable);
+        } else {
+            MailCursor after = MailCursor.decode(cursor);
+            mails = userMailboxRepository.findFolderPageAfter(
+                    userId, folder, receivedSince, after.getReceivedAt(), after.getId(), pageable);
+        }
+
+        boolean hasMore = mails.size() > pageSize;
+        if (hasMore) {
+            mails = mails.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            MailResponse last = mails.get(mails.size() - 1);
+            nextCursor = new MailCursor(last.getReceivedAt(), last.getMailboxId()).encode();
+        }
 
-        return mailboxes.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return new MailPageResponse(mails, nextCursor, hasMore);
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
     @Transactional
     public void deleteMail(Long userId, Long mailId) {
         UserMailbox mailbox = userMailboxRepository
-                .findByUserUserIdAndMailMailId(userId, mailId)
+                .lockByUserAndMail(userId, mailId)
                 .orElseThrow(() -> new RuntimeException("Mail not found in mailbox"));
 
+        boolean live = !mailbox.getIsDeleted();
+        boolean unread = !mailbox.getIsRead() && live;
+        Long threadId = mailbox.getMail().getThreadId();
+
         if (mailbox.getFolder() == MailFolder.TRASH) {
             // Permanent delete
             mailbox.setIsDeleted(true);
             mailbox.setDeletedAt(LocalDateTime.now());
+            if (unread) {
+                mailboxCounterService.adjustUnread(userId, MailFolder.TRASH, -1);
+            }
+            if (live && threadId != null) {
+                // The thread's summary is recomputed from the rows in the database
+                userMailboxRepository.flush();
+                threadSummaryService.removeRows(userId, Map.of(threadId, new long[]{1, unread ? 1 : 0}));
+            }
         } else {
             // Move to trash
+            if (unread) {
+                mailboxCounterService.moveUnread(userId, mailbox.getFolder(), MailFolder.TRASH);
+            }
             mailbox.setFolder(MailFolder.TRASH);
+            mailbox.setIsArchived(false);
+            mailbox.setTrashedAt(LocalDateTime.now());
         }
 
         userMailboxRepository.save(mailbox);
-
-        // Check if all users deleted - cleanup
-        cleanupMailIfNeeded(mailId);
+        eventPublisher.publishEvent(MailboxChangedEvent.forUser(
+                MailboxChangedEvent.Type.MAIL_DELETED, userId, List.of(mailId)));
+        // Once every copy is deleted, MailboxCleanupWorker purges the mail itself
     }
 
     @Transactional
     public void markAsRead(Long userId, Long mailId) {
         UserMailbox mailbox = userMailboxRepository
-                .findByUserUserIdAndMailMailId(userId, mailId)
+                .lockByUserAndMail(userId, mailId)
                 .orElseThrow(() -> new RuntimeException("Mail not found"));
 
+        if (mailbox.getIsRead()) {
+            return;
+        }
+
         mailbox.setIsRead(true);
         mailbox.setReadAt(LocalDateTime.now());
         userMailboxRepository.save(mailbox);
+        if (!mailbox.getIsDeleted()) {
+            mailboxCounterService.adjustUnread(userId, mailbox.getFolder(), -1);
+            Long threadId = mailbox.getMail().getThreadId();
+            if (threadId != null) {
+                threadSummaryService.adjustUnread(userId, Map.of(threadId, -1L));
+            }
+        }
+        eventPublisher.publishEvent(MailboxChangedEvent.forUser(
+                MailboxChangedEvent.Type.MAIL_READ, userId, List.of(mailId)));
     }
 
     @Transactional
@@ -155,53 +409,188 @@ public class MailService {
 
         mailbox.setIsStarred(!mailbox.getIsStarred());
         userMailboxRepository.save(mailbox);
+        eventPublisher.publishEvent(MailboxChangedEvent.forUser(
+                MailboxChangedEvent.Type.MAILBOX_UPDATED, userId, List.of(mailId)));
     }
 
-    public Long getUnreadCount(Long userId) {
-        return userMailboxRepository
-                .findByUserUserIdAndIsReadFalseAndIsDeletedFalse(userId)
-                .stream()
-                .count();
+    public MailSearchResponse searchMails(Long userId, String query, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        int pageSize = resolvePageSize(size);
+        int pageNumber = page == null || page < 0 ? 0 : page;
+
+        // Fetch one extra hit to know whether another page exists
+        List<MailResponse> hits = mailSearchRepository.search(
+                userId, query.trim(), pageSize + 1, pageNumber * pageSize);
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+        return new MailSearchResponse(query, pageNumber, pageSize, hasMore, hits);
     }
 
-    private void cleanupMailIfNeeded(Long mailId) {
-        List<UserMailbox> allMailboxes = userMailboxRepository.findByMailMailId(mailId);
+    // Applies one action to many mails with set-based UPDATEs instead of a read + save per mail
+    @Transactional
+    public int applyBulkAction(Long userId, BulkMailActionRequest request) {
+        List<Long> mailIds = request.getMailIds().stream().distinct().collect(Collectors.toList());
+        int updated = applyBulkAction(userId, mailIds, request);
+
+        MailboxChangedEvent.Type type = switch (request.getAction()) {
+            case READ -> MailboxChangedEvent.Type.MAIL_READ;
+            case DELETE -> MailboxChangedEvent.Type.MAIL_DELETED;
+            default -> MailboxChangedEvent.Type.MAILBOX_UPDATED;
+        };
+        eventPublisher.publishEvent(MailboxChangedEvent.forUser(type, userId, mailIds));
+        return updated;
+    }
 
-        boolean allDeleted = allMailboxes.stream()
-                .allMatch(UserMailbox::getIsDeleted);
+    private int applyBulkAction(Long userId, List<Long> mailIds, BulkMailActionRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        // Counted and updated under the rows' locks, so a concurrent action cannot count them too
+        userMailboxRepository.lockByUserAndMails(userId, mailIds);
+
+        switch (request.getAction()) {
+            case READ: {
+                Map<MailFolder, Long> unread = countByFolder(userId, mailIds, false);
+                Map<Long, Long> unreadByThread = countByThread(userId, mailIds, false, -1);
+                int updated = userMailboxRepository.updateReadState(userId, mailIds, true, now);
+                unread.forEach((folder, count) -> mailboxCounterService.adjustUnread(userId, folder, -count));
+                threadSummaryService.adjustUnread(userId, unreadByThread);
+                return updated;
+            }
+            case UNREAD: {
+                Map<MailFolder, Long> read = countByFolder(userId, mailIds, true);
+                Map<Long, Long> readByThread = countByThread(userId, mailIds, true, 1);
+                int updated = userMailboxRepository.updateReadState(userId, mailIds, false, null);
+                read.forEach((folder, count) -> mailboxCounterService.adjustUnread(userId, folder, count));
+                threadSummaryService.adjustUnread(userId, readByThread);
+                return updated;
+            }
+            case STAR:
+                return userMailboxRepository.updateStarred(userId, mailIds, true);
+            case UNSTAR:
+                return userMailboxRepository.updateStarred(userId, mailIds, false);
+            case MOVE: {
+                MailFolder target = request.getTargetFolder();
+                if (target == null) {
+                    throw new IllegalArgumentException("Target folder is required for MOVE");
+                }
+                Map<MailFolder, Long> unread = countByFolder(userId, mailIds, false);
+                int updated = userMailboxRepository.moveToFolder(userId, mailIds, target,
+                        target == MailFolder.ARCHIVED, target == MailFolder.TRASH ? now : null);
+                moveUnreadCounts(userId, unread, target);
+                return updated;
+            }
+            case DELETE: {
+                // Same rules as deleteMail: rows already in trash are deleted permanently,
+                // everything else moves to trash. Purge first so moved rows are not purged too.
+                Map<MailFolder, Long> unread = countByFolder(userId, mailIds, false);
+                Map<Long, long[]> purgedByThread = new HashMap<>();
+                for (Object[] row : userMailboxRepository.countByThreadInFolder(userId, mailIds, MailFolder.TRASH)) {
+                    purgedByThread.put((Long) row[0], new long[]{(Long) row[1], (Long) row[2]});
+                }
+                int purged = userMailboxRepository.markDeletedInFolder(userId, mailIds, MailFolder.TRASH, now);
+                int trashed = userMailboxRepository.moveToFolder(userId, mailIds, MailFolder.TRASH, false, now);
+
+                Long unreadInTrash = unread.remove(MailFolder.TRASH);
+                if (unreadInTrash != null) {
+                    mailboxCounterService.adjustUnread(userId, MailFolder.TRASH, -unreadInTrash);
+                }
+                moveUnreadCounts(userId, unread, MailFolder.TRASH);
+                threadSummaryService.removeRows(userId, purgedByThread);
+                return purged + trashed;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported action: " + request.getAction());
+        }
+    }
+
+    private Map<MailFolder, Long> countByFolder(Long userId, List<Long> mailIds, boolean isRead) {
+        Map<MailFolder, Long> counts = new EnumMap<>(MailFolder.class);
+        for (Object[] row : userMailboxRepository.countByFolderAndReadState(userId, mailIds, isRead)) {
+            counts.put((MailFolder) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
 
-        if (allDeleted) {
-            mailRepository.deleteById(mailId);
-            userMailboxRepository.deleteAll(allMailboxes);
+    // Matching live rows per thread, each counted as the given unread delta
+    private Map<Long, Long> countByThread(Long userId, List<Long> mailIds, boolean isRead, long delta) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : userMailboxRepository.countByThreadAndReadState(userId, mailIds, isRead)) {
+            counts.put((Long) row[0], delta * (Long) row[1]);
         }
+        return counts;
     }
 
-    private MailResponse convertToResponse(UserMailbox mailbox) {
-        Mail mail = mailbox.getMail();
-        MailResponse response = new MailResponse();
-        response.setMailId(mail.getMailId());
-        response.setSubject(mail.getSubject());
-        response.setContent(mail.getContent());
-        response.setSenderName(mail.getSender().getFirstName() + " " +
-                mail.getSender().getLastName());
-        response.setSenderEmail(mail.getSender().getEmail());
-        response.setSentAt(mail.getSentAt());
-        response.setIsRead(mailbox.getIsRead());
-        response.setIsStarred(mailbox.getIsStarred());
-        response.setFolder(mailbox.getFolder().toString());
-        return response;
+    private void moveUnreadCounts(Long userId, Map<MailFolder, Long> unreadByFolder, MailFolder target) {
+        long moved = 0;
+        for (Map.Entry<MailFolder, Long> entry : unreadByFolder.entrySet()) {
+            if (entry.getKey() != target) {
+                mailboxCounterService.adjustUnread(userId, entry.getKey(), -entry.getValue());
+                moved += entry.getValue();
+            }
+        }
+        mailboxCounterService.adjustUnread(userId, target, moved);
+    }
+
+    // O(1): served from the maintained per-folder counters, not by scanning user_mailbox
+    public Long getUnreadCount(Long userId) {
+        return mailboxCounterService.getUnreadCount(userId);
+    }
+
+    // The thread's mails the user can see, oldest first
+    public List<MailResponse> getThreadMessages(Long userId, Long threadId) {
+        List<MailResponse> messages = userMailboxRepository.findThreadRows(userId, threadId);
+        if (messages.isEmpty()) {
+            throw new RuntimeException("Thread not found with ID: " + threadId);
+        }
+        return messages;
+    }
+
+    /**
+     * One mail as the user sees it, including its content. This and the AI endpoints are the
+     * only readers of mail bodies; listings and send responses carry headers only.
+     */
+    public MailResponse getMail(Long userId, Long mailId) {
+        List<MailResponse> rows = userMailboxRepository.findMailRows(userId, mailId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Mail not found in mailbox");
+        }
+        MailResponse mail = rows.get(0);
+        mail.setContent(findMailContent(mailId).orElse(""));
+        mail.setAttachments(mail.getHasAttachments() ? attachmentService.listForMail(mailId) : List.of());
+        return mail;
+    }
+
+    // Empty when the mail no longer exists or has no body
+    public Optional<String> findMailContent(Long mailId) {
+        return mailBodyRepository.findByMailId(mailId).map(mailBodyCodec::decode);
+    }
+
+    // Contents of the requested mails the user can see, keyed by mail ID
+    public Map<Long, String> getMailContents(Long userId, Collection<Long> mailIds) {
+        List<Long> visible = userMailboxRepository.findVisibleMailIds(userId, mailIds);
+        Map<Long, String> contents = new LinkedHashMap<>();
+        if (visible.isEmpty()) {
+            return contents;
+        }
+        for (Object[] row : mailBodyRepository.findByMailIds(visible)) {
+            contents.put((Long) row[0], mailBodyCodec.decode((MailBody) row[1]));
+        }
+        return contents;
     }
 
     public String getMailContentById(Long mailId){
         try{
-            String content = mailRepository.findMailByMailId(mailId).getContent();
+            String content = findMailContent(mailId).orElse(null);
             if(content != null){
                 return content;
             }else{
                 return "Email content does not exist.";
             }
         }catch(Exception e){
-            System.err.println("Error fetching mail content: "+e.getMessage());
+            log.error("Error fetching mail content: {}", e.getMessage());
             return "Failed to fetch mail content.";
         }
     }
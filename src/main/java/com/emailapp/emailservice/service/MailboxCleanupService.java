@@ -0,0 +1,132 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.repository.BroadcastJobRepository;
+import com.emailapp.emailservice.repository.MailRepository;
+import com.emailapp.emailservice.repository.UserMailboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deferred mailbox cleanup, one bounded chunk per transaction (driven by MailboxCleanupWorker).
+ * Deletes only mark mailbox rows; here mails whose every row is deleted are purged with their
+ * rows, attachments and body references, and trash older than the retention period is emptied.
+ *
+ * Mailbox rows of a mail someone still has are kept even when deleted: they are the mail's
+ * recipient list (reply all). They are dropped once older than the deleted-row retention period,
+ * so the sweep does not re-examine them for as long as the mail lives. A mail a broadcast is
+ * still delivering is never purged, even when every row written so far is deleted.
+ */
+@Service
+public class MailboxCleanupService {
+
+    @Autowired
+    private UserMailboxRepository userMailboxRepository;
+
+    @Autowired
+    private MailRepository mailRepository;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private MailBodyStore mailBodyStore;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private ThreadSummaryService threadSummaryService;
+
+    @Autowired
+    private BroadcastJobRepository broadcastJobRepository;
+
+    // Where the sweep over mails with deleted rows continues; per instance, restarts at 0
+    private volatile long sweepCursor;
+
+    /**
+     * Examines the next mails (by ID) that have deleted rows and purges those deleted everywhere.
+     * Returns how many mails were examined; 0 once a sweep is complete, and the next one starts over.
+     */
+    @Transactional
+    public int purgeDeletedMails(int chunkSize) {
+        List<Long> candidates = userMailboxRepository.findDeletedMailIdsAfter(
+                sweepCursor, PageRequest.of(0, chunkSize));
+        if (candidates.isEmpty()) {
+            sweepCursor = 0;
+            return 0;
+        }
+        sweepCursor = candidates.get(candidates.size() - 1);
+
+        // Locked first: another instance purging the same mails waits, then finds them gone
+        List<Long> locked = mailRepository.lockByMailIds(candidates);
+        List<Long> fullyDeleted = locked.isEmpty() ? locked : userMailboxRepository.findFullyDeletedMailIds(locked);
+        if (!fullyDeleted.isEmpty()) {
+            fullyDeleted = new ArrayList<>(fullyDeleted);
+            fullyDeleted.removeAll(broadcastJobRepository.findActiveMailIds(fullyDeleted));
+        }
+        if (!fullyDeleted.isEmpty()) {
+            List<Long> bodyIds = mailRepository.findBodyIds(fullyDeleted);
+            List<Long> threadIds = mailRepository.findThreadIds(fullyDeleted);
+            attachmentService.releaseForMails(fullyDeleted);
+            userMailboxRepository.deleteByMailIds(fullyDeleted);
+            mailRepository.deleteByMailIds(fullyDeleted);
+            // Drops these mails' references; a body goes with the last mail that uses it
+            mailBodyStore.release(bodyIds);
+            threadSummaryService.deleteEmptyThreads(threadIds);
+        }
+        return candidates.size();
+    }
+
+    /**
+     * Drops up to chunkSize rows deleted before the cutoff from mails that are still kept by
+     * someone; their bookkeeping was done when they were deleted. PostgreSQL only.
+     */
+    @Transactional
+    public int dropExpiredDeletedRows(LocalDateTime cutoff, int chunkSize) {
+        return userMailboxRepository.deleteExpiredDeletedRows(cutoff, chunkSize);
+    }
+
+    /**
+     * Permanently deletes up to chunkSize trash rows trashed before the cutoff, with the same
+     * counter and thread bookkeeping as a user emptying them. Returns the number deleted.
+     */
+    @Transactional
+    public int expireTrash(LocalDateTime cutoff, int chunkSize) {
+        List<Object[]> rows = userMailboxRepository.lockExpiredTrash(cutoff, chunkSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<Long, Long> unreadByUser = new HashMap<>();
+        Map<Long, Map<Long, long[]>> removedByUser = new HashMap<>();
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+            Long userId = ((Number) row[1]).longValue();
+            boolean unread = !Boolean.TRUE.equals(row[3]);
+            if (unread) {
+                unreadByUser.merge(userId, 1L, Long::sum);
+            }
+            if (row[2] != null) {
+                long[] removed = removedByUser.computeIfAbsent(userId, id -> new HashMap<>())
+                        .computeIfAbsent(((Number) row[2]).longValue(), id -> new long[2]);
+                removed[0]++;
+                removed[1] += unread ? 1 : 0;
+            }
+        }
+
+        int deleted = userMailboxRepository.markDeletedByIds(ids, LocalDateTime.now());
+        unreadByUser.forEach((userId, count) -> mailboxCounterService.adjustUnread(userId, MailFolder.TRASH, -count));
+        removedByUser.forEach(threadSummaryService::removeRows);
+        return deleted;
+    }
+}
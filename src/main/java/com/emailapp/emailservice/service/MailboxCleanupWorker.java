@@ -0,0 +1,76 @@
+package com.emailapp.emailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Runs mailbox cleanup in the background, throttled by BackgroundChunkRunner: each run does at
+ * most max-chunks-per-run chunks and yields to foreground traffic when the pool gets busy.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.cleanup.enabled", havingValue = "true", matchIfMissing = true)
+public class MailboxCleanupWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(MailboxCleanupWorker.class);
+
+    @Autowired
+    private MailboxCleanupService mailboxCleanupService;
+
+    @Autowired
+    private BackgroundChunkRunner chunkRunner;
+
+    @Value("${mail.cleanup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${mail.cleanup.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    @Value("${mail.cleanup.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    @Value("${mail.cleanup.max-pool-usage:0.5}")
+    private double maxPoolUsage;
+
+    // 0 keeps trash until the user empties it
+    @Value("${mail.cleanup.trash-retention-days:30}")
+    private int trashRetentionDays;
+
+    // 0 keeps deleted rows of kept mails (and re-examines them every sweep) for the mail's lifetime
+    @Value("${mail.cleanup.deleted-row-retention-days:90}")
+    private int deletedRowRetentionDays;
+
+    @Scheduled(
+            initialDelayString = "${mail.cleanup.initial-delay-ms:60000}",
+            fixedDelayString = "${mail.cleanup.interval-ms:300000}"
+    )
+    public void run() {
+        try {
+            if (trashRetentionDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(trashRetentionDays);
+                int expired = chunkRunner.run(() -> mailboxCleanupService.expireTrash(cutoff, chunkSize),
+                        maxChunksPerRun, chunkPauseMs, maxPoolUsage);
+                if (expired > 0) {
+                    log.info("Mailbox cleanup: {} expired trash rows deleted", expired);
+                }
+            }
+            if (deletedRowRetentionDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(deletedRowRetentionDays);
+                chunkRunner.run(() -> mailboxCleanupService.dropExpiredDeletedRows(cutoff, chunkSize),
+                        maxChunksPerRun, chunkPauseMs, maxPoolUsage);
+            }
+            chunkRunner.run(() -> mailboxCleanupService.purgeDeletedMails(chunkSize),
+                    maxChunksPerRun, chunkPauseMs, maxPoolUsage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Mailbox cleanup failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.MailFolder;
+import com.emailapp.emailservice.entity.MaintenanceState;
+import com.emailapp.emailservice.repository.MailboxCounterRepository;
+import com.emailapp.emailservice.repository.MaintenanceStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-user, per-folder unread counters.
+ * Callers adjust them inside their own transaction so the counter commits together with the
+ * user_mailbox change; MailboxCounterWorker periodically repairs any drift, a few users at a time.
+ * Its position is kept in maintenance_state, so all instances share one pass over the users.
+ */
+@Service
+public class MailboxCounterService {
+
+    static final String RECONCILE_STATE = "unread-counter-reconciliation";
+
+    @Autowired
+    private MailboxCounterRepository mailboxCounterRepository;
+
+    @Autowired
+    private MaintenanceStateRepository maintenanceStateRepository;
+
+    // A finished pass is not started over before this has passed, whichever instance asks
+    @Value("${mail.counters.reconcile-interval-ms:3600000}")
+    private long reconcileIntervalMs;
+
+    public Long getUnreadCount(Long userId) {
+        return mailboxCounterRepository.sumUnreadByUserId(userId);
+    }
+
+    @Transactional
+    public void adjustUnread(Long userId, MailFolder folder, long delta) {
+        adjustUnread(List.of(userId), folder, delta);
+    }
+
+    @Transactional
+    public void adjustUnread(Collection<Long> userIds, MailFolder folder, long delta) {
+        if (userIds.isEmpty() || delta == 0) {
+            return;
+        }
+        mailboxCounterRepository.adjustUnread(userIds, folder.name(), delta);
+    }
+
+    // Unread mail moving between folders
+    @Transactional
+    public void moveUnread(Long userId, MailFolder from, MailFolder to) {
+        if (from == to) {
+            return;
+        }
+        adjustUnread(userId, from, -1);
+        adjustUnread(userId, to, 1);
+    }
+
+    /**
+     * Recounts the unread counters of the next batchSize users from user_mailbox, with their
+     * counter rows locked so no concurrent adjustment is lost. Returns the counters repaired;
+     * -1 when there is nothing to do now: the pass is through all users (the next one starts after
+     * the reconcile interval), or another instance is working on a batch.
+     */
+    @Transactional
+    public int reconcileBatch(int batchSize) {
+        maintenanceStateRepository.createIfAbsent(RECONCILE_STATE);
+        Optional<MaintenanceState> locked = maintenanceStateRepository.lockIfFree(RECONCILE_STATE);
+        if (locked.isEmpty()) {
+            return -1;
+        }
+        MaintenanceState state = locked.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (state.getPosition() == 0 && state.getCompletedAt() != null
+                && state.getCompletedAt().isAfter(now.minusNanos(reconcileIntervalMs * 1_000_000))) {
+            return -1;
+        }
+
+        List<Long> userIds = mailboxCounterRepository.findUserIdsAfter(state.getPosition(), batchSize);
+        if (userIds.isEmpty()) {
+            state.setPosition(0L);
+            state.setCompletedAt(now);
+            return -1;
+        }
+        state.setPosition(userIds.get(userIds.size() - 1));
+
+        mailboxCounterRepository.lockByUserIds(userIds);
+        return mailboxCounterRepository.reconcileUnreadCounts(userIds)
+                + mailboxCounterRepository.resetStaleUnreadCounts(userIds);
+    }
+}
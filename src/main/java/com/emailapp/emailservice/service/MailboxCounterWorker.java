@@ -0,0 +1,68 @@
+package com.emailapp.emailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconciles unread counters in the background, one small batch of users per transaction,
+ * throttled by BackgroundChunkRunner like mailbox cleanup. A run that stops early (budget spent,
+ * pool busy) is continued by the next one, on whichever instance gets there first.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.counters.reconcile-enabled", havingValue = "true", matchIfMissing = true)
+public class MailboxCounterWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(MailboxCounterWorker.class);
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private BackgroundChunkRunner chunkRunner;
+
+    @Value("${mail.counters.reconcile-batch-size:200}")
+    private int batchSize;
+
+    @Value("${mail.counters.reconcile-max-batches-per-run:500}")
+    private int maxBatchesPerRun;
+
+    @Value("${mail.counters.reconcile-batch-pause-ms:50}")
+    private long batchPauseMs;
+
+    @Value("${mail.counters.reconcile-max-pool-usage:0.5}")
+    private double maxPoolUsage;
+
+    @Scheduled(
+            initialDelayString = "${mail.counters.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${mail.counters.reconcile-interval-ms:3600000}"
+    )
+    public void run() {
+        AtomicInteger repaired = new AtomicInteger();
+        try {
+            // A batch that repaired nothing still counts as work; only the end of the users (or another
+            // instance busy with the pass) stops the run
+            chunkRunner.run(() -> {
+                int batch = mailboxCounterService.reconcileBatch(batchSize);
+                if (batch < 0) {
+                    return 0;
+                }
+                repaired.addAndGet(batch);
+                return 1;
+            }, maxBatchesPerRun, batchPauseMs, maxPoolUsage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Unread counter reconciliation failed: {}", e.getMessage());
+        }
+        if (repaired.get() > 0) {
+            log.info("Unread counters reconciled: {} repaired", repaired.get());
+        }
+    }
+}
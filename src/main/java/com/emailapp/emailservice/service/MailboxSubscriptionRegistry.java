@@ -0,0 +1,130 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.response.MailboxEventResponse;
+import com.emailapp.emailservice.event.MailboxChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process registry of Server-Sent Event streams, one or more per connected user.
+ * Emitters are async servlet responses, so an idle connection holds no thread; pushes are
+ * written from virtual threads so a slow client never blocks the committing transaction.
+ */
+@Service
+public class MailboxSubscriptionRegistry {
+
+    private static final int MAX_STREAMS_PER_USER = 5;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Value("${mail.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Map<Long, List<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> evicted = new ArrayList<>();
+        emittersByUser.compute(userId, (id, emitters) -> {
+            if (emitters == null) {
+                emitters = new CopyOnWriteArrayList<>();
+            }
+            // Drop the oldest stream when a user opens too many tabs
+            while (emitters.size() >= MAX_STREAMS_PER_USER) {
+                evicted.add(emitters.remove(0));
+            }
+            emitters.add(emitter);
+            return emitters;
+        });
+        evicted.forEach(SseEmitter::complete);
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        // Initial state so the client does not need a separate unread poll
+        send(userId, emitter, new MailboxEventResponse(
+                "CONNECTED", null, null, mailboxCounterService.getUnreadCount(userId)));
+        return emitter;
+    }
+
+    public int getConnectionCount() {
+        return emittersByUser.values().stream().mapToInt(List::size).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailboxChanged(MailboxChangedEvent event) {
+        for (Long userId : event.getUserIds()) {
+            List<SseEmitter> emitters = emittersByUser.get(userId);
+            if (emitters == null || emitters.isEmpty()) {
+                continue;
+            }
+            dispatcher.submit(() -> {
+                MailboxEventResponse payload = new MailboxEventResponse(
+                        event.getType().toString(),
+                        event.getMailIds(),
+                        event.getMail(),
+                        mailboxCounterService.getUnreadCount(userId)
+                );
+                for (SseEmitter emitter : emitters) {
+                    send(userId, emitter, payload);
+                }
+            });
+        }
+    }
+
+    // Keeps idle connections open through proxies and prunes dead ones
+    @Scheduled(fixedDelayString = "${mail.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emittersByUser.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        emittersByUser.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        emittersByUser.clear();
+    }
+
+    private void send(Long userId, SseEmitter emitter, MailboxEventResponse payload) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("mailbox")
+                    .data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
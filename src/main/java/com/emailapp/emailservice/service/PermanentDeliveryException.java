@@ -0,0 +1,10 @@
+package com.emailapp.emailservice.service;
+
+// Thrown for a send that can never succeed as requested (unknown sender, no or too many recipients,
+// attachments that are not the sender's pending uploads); the outbox fails it instead of retrying
+public class PermanentDeliveryException extends RuntimeException {
+
+    public PermanentDeliveryException(String message) {
+        super(message);
+    }
+}
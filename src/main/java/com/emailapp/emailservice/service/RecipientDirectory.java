@@ -0,0 +1,158 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.cache.BoundedLruCache;
+import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.event.UserChangedEvent;
+import com.emailapp.emailservice.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory directory of mail users for the send path: email -> user ID and display profile,
+ * and user ID -> the same entry, in size-bounded LRU maps with a TTL.
+ *
+ * An address no user has is remembered as unknown for a short TTL, so a mistyped recipient that
+ * is retried is rejected without another query. Users registered through another instance are
+ * not announced here; they become reachable when that TTL runs out.
+ *
+ * UserService publishes UserChangedEvent on registration, import and changes; cached entries for
+ * those emails, known or unknown, are evicted after commit.
+ */
+@Service
+public class RecipientDirectory {
+
+    public record Entry(Long userId, String email, String username, String firstName, String lastName) {
+    }
+
+    private record Cached(Entry entry, long expiresAtNanos) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${mail.directory.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${mail.directory.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${mail.directory.unknown-max-entries:10000}")
+    private int unknownMaxEntries;
+
+    @Value("${mail.directory.unknown-ttl-seconds:60}")
+    private long unknownTtlSeconds;
+
+    private BoundedLruCache<String, Cached> byEmail;
+    // Only a hint: an ID whose email now maps to another user's entry is looked up again
+    private BoundedLruCache<Long, String> emailById;
+    // Addresses a lookup found no user for -> when that answer expires (System.nanoTime)
+    private BoundedLruCache<String, Long> unknown;
+
+    @PostConstruct
+    void init() {
+        byEmail = new BoundedLruCache<>(maxEntries);
+        emailById = new BoundedLruCache<>(maxEntries);
+        unknown = new BoundedLruCache<>(unknownMaxEntries);
+    }
+
+    public Optional<Entry> findById(Long userId) {
+        String email = emailById.get(userId);
+        Entry entry = email != null ? live(email) : null;
+        if (entry != null && entry.userId().equals(userId)) {
+            return Optional.of(entry);
+        }
+        return userRepository.findById(userId).map(this::cache);
+    }
+
+    /**
+     * Entries for the given addresses that belong to registered users; unknown addresses are
+     * simply absent from the result. Addresses in neither cache are loaded with a single IN
+     * query.
+     */
+    public Map<String, Entry> resolve(Collection<String> emails) {
+        Map<String, Entry> resolved = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+
+        long now = System.nanoTime();
+        for (String email : emails) {
+            Entry entry = live(email);
+            if (entry != null) {
+                resolved.put(email, entry);
+            } else if (!knownUnknown(email, now)) {
+                toLoad.add(email);
+            }
+        }
+
+        if (!toLoad.isEmpty()) {
+            for (User user : userRepository.findByEmailIn(toLoad)) {
+                resolved.put(user.getEmail(), cache(user));
+            }
+            long expiresAt = now + unknownTtlSeconds * 1_000_000_000L;
+            for (String email : toLoad) {
+                if (!resolved.containsKey(email)) {
+                    unknown.put(email, expiresAt);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private boolean knownUnknown(String email, long now) {
+        Long expiresAt = unknown.get(email);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - now <= 0) {
+            unknown.remove(email, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    // Unexpired cached entry, or null
+    private Entry live(String email) {
+        Cached cached = byEmail.get(email);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAtNanos() - System.nanoTime() <= 0) {
+            byEmail.remove(email, cached);
+            return null;
+        }
+        return cached.entry();
+    }
+
+    private Entry cache(User user) {
+        Entry entry = new Entry(user.getUserId(), user.getEmail(), user.getUsername(),
+                user.getFirstName(), user.getLastName());
+        byEmail.put(entry.email(), new Cached(entry, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+        emailById.put(entry.userId(), entry.email());
+        return entry;
+    }
+
+    public void evict(Collection<String> emails) {
+        for (String email : emails) {
+            unknown.remove(email);
+            Cached cached = byEmail.remove(email);
+            if (cached != null) {
+                emailById.remove(cached.entry().userId(), email);
+            }
+        }
+    }
+
+    // After commit, so a concurrent send that cached the old row in between is covered too
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getEmails());
+    }
+}
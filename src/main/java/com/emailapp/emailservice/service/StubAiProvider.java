@@ -0,0 +1,61 @@
+package com.emailapp.emailservice.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Deterministic local provider for tests and offline development (ai.provider=stub).
+ * Answers every AiPrompts prompt in the expected format without any network call;
+ * a "summary" is the first words of the email.
+ */
+@Component
+@ConditionalOnProperty(name = "ai.provider", havingValue = "stub")
+public class StubAiProvider implements AiProvider {
+
+    private static final int SUMMARY_WORDS = 20;
+    private static final Pattern BATCH_ITEM = Pattern.compile(
+            Pattern.quote(AiPrompts.BATCH_ITEM_PREFIX) + "(\\d+)" + Pattern.quote(AiPrompts.BATCH_ITEM_SUFFIX) +
+                    "\\n(.*?)(?=\\n\\n" + Pattern.quote(AiPrompts.BATCH_ITEM_PREFIX) + "|\\n\\n$|$)",
+            Pattern.DOTALL);
+
+    @Override
+    public String modelName() {
+        return "stub";
+    }
+
+    @Override
+    public String generate(String prompt) {
+        if (prompt.contains(AiPrompts.BATCH_FORMAT)) {
+            List<String> items = new ArrayList<>();
+            Matcher matcher = BATCH_ITEM.matcher(prompt);
+            while (matcher.find()) {
+                items.add("{\"id\":\"" + matcher.group(1) + "\",\"summary\":\"" +
+                        escape(firstWords(matcher.group(2))) + "\"}");
+            }
+            return "[" + String.join(",", items) + "]";
+        }
+        if (prompt.contains(AiPrompts.REPLIES_FORMAT)) {
+            return "[\"Thanks, got it.\", \"I'll follow up shortly.\", \"Can we discuss this?\"]";
+        }
+        int content = prompt.indexOf(AiPrompts.CONTENT_MARKER);
+        String email = content >= 0 ? prompt.substring(content + AiPrompts.CONTENT_MARKER.length()) : prompt;
+        return firstWords(email);
+    }
+
+    private String firstWords(String text) {
+        return Arrays.stream(text.trim().split("\\s+"))
+                .limit(SUMMARY_WORDS)
+                .collect(Collectors.joining(" "));
+    }
+
+    private String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
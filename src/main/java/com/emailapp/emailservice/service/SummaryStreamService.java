@@ -0,0 +1,78 @@
+package com.emailapp.emailservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams AI summaries to the client over SSE as the model generates them.
+ * Events: "chunk" (a piece of text), then "done", or "error" carrying fallback text.
+ * When the client goes away the stream is flagged cancelled and the model call is abandoned.
+ */
+@Service
+public class SummaryStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryStreamService.class);
+
+    @Autowired
+    private AIService aiService;
+
+    @Value("${ai.stream.timeout-ms:60000}")
+    private long timeoutMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SseEmitter streamSummary(String emailContent) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        executor.execute(() -> {
+            try {
+                aiService.streamSummary(emailContent, chunk -> send(emitter, "chunk", chunk), cancelled::get);
+                if (!cancelled.get()) {
+                    send(emitter, "done", "");
+                    emitter.complete();
+                }
+            } catch (UncheckedIOException e) {
+                // Client disconnected mid-stream
+                cancelled.set(true);
+                emitter.completeWithError(e);
+            } catch (Exception e) {
+                log.warn("Summary stream error: {}", e.getMessage());
+                try {
+                    send(emitter, "error", "AI summary is temporarily unavailable. Please try again shortly.");
+                    emitter.complete();
+                } catch (UncheckedIOException disconnected) {
+                    emitter.completeWithError(disconnected);
+                }
+            }
+        });
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void send(SseEmitter emitter, String name, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.response.ThreadPageResponse;
+import com.emailapp.emailservice.dto.response.ThreadResponse;
+import com.emailapp.emailservice.entity.MailThread;
+import com.emailapp.emailservice.repository.MailThreadRepository;
+import com.emailapp.emailservice.repository.UserThreadBulkRepository;
+import com.emailapp.emailservice.repository.UserThreadRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains thread summaries incrementally, inside the transactions that change mailbox rows:
+ * a send adds to the thread and to each participant's row, read-state changes and permanent
+ * deletes adjust the affected users' rows. Listing threads then reads the summaries only.
+ *
+ * Per-user counts are over the user's live (not permanently deleted) mailbox rows, so a mail
+ * someone sent to themselves counts twice for them, like it appears twice in their folders.
+ */
+@Service
+public class ThreadSummaryService {
+
+    private static final int MAX_PARTICIPANTS = 20;
+    private static final int MAX_PARTICIPANTS_LENGTH = 2000;  // MailThread.participants column
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private MailThreadRepository mailThreadRepository;
+
+    @Autowired
+    private UserThreadRepository userThreadRepository;
+
+    @Autowired
+    private UserThreadBulkRepository userThreadBulkRepository;
+
+    public Long startThread(String subject) {
+        MailThread thread = new MailThread();
+        thread.setSubject(subject);
+        return mailThreadRepository.save(thread).getThreadId();
+    }
+
+    /**
+     * Records a sent mail: the thread's totals and participants, and per user the mailbox rows
+     * (and unread rows) they just got. The maps are keyed by user ID.
+     */
+    public void recordMessage(Long threadId, Long mailId, LocalDateTime sentAt, Collection<String> participantEmails,
+                              Map<Long, Integer> rowsByUser, Map<Long, Integer> unreadByUser) {
+        MailThread thread = mailThreadRepository.findForUpdate(threadId)
+                .orElseThrow(() -> new RuntimeException("Thread not found with ID: " + threadId));
+        thread.setMessageCount(thread.getMessageCount() + 1);
+        thread.setLastMailId(mailId);
+        thread.setLastActivityAt(sentAt);
+        thread.setParticipants(mergeParticipants(thread.getParticipants(), participantEmails));
+        mailThreadRepository.save(thread);
+
+        List<Long> userIds = new ArrayList<>(rowsByUser.keySet());
+        List<Integer> rows = new ArrayList<>(userIds.size());
+        List<Integer> unread = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(rowsByUser.get(userId));
+            unread.add(unreadByUser.getOrDefault(userId, 0));
+        }
+        userThreadBulkRepository.recordMessage(threadId, mailId, sentAt, userIds, rows, unread);
+    }
+
+    // A mail already recorded on its thread reaching more users, one unread row each (broadcast chunks)
+    public void recordDelivery(Long threadId, Long mailId, LocalDateTime deliveredAt, List<Long> userIds) {
+        List<Integer> ones = Collections.nCopies(userIds.size(), 1);
+        userThreadBulkRepository.recordMessage(threadId, mailId, deliveredAt, userIds, ones, ones);
+    }
+
+    // Read-state flips, as unread deltas per thread
+    public void adjustUnread(Long userId, Map<Long, Long> unreadDeltaByThread) {
+        List<Long> threadIds = new ArrayList<>(unreadDeltaByThread.keySet());
+        List<Integer> unread = threadIds.stream().map(id -> unreadDeltaByThread.get(id).intValue()).toList();
+        userThreadBulkRepository.adjustCounts(userId, threadIds, Collections.nCopies(threadIds.size(), 0), unread);
+    }
+
+    /**
+     * Permanently deleted rows per thread: [rows, of which unread]. The rows must already be
+     * marked deleted (and flushed), since the threads that keep other mail are then pointed at
+     * the latest one the user still has.
+     */
+    public void removeRows(Long userId, Map<Long, long[]> removedByThread) {
+        if (removedByThread.isEmpty()) {
+            return;
+        }
+        List<Long> threadIds = new ArrayList<>(removedByThread.keySet());
+        List<Integer> messages = new ArrayList<>(threadIds.size());
+        List<Integer> unread = new ArrayList<>(threadIds.size());
+        for (Long threadId : threadIds) {
+            long[] removed = removedByThread.get(threadId);
+            messages.add((int) -removed[0]);
+            unread.add((int) -removed[1]);
+        }
+        userThreadBulkRepository.adjustCounts(userId, threadIds, messages, unread);
+        userThreadRepository.deleteEmpty(userId, threadIds);
+        userThreadBulkRepository.refreshLastMail(userId, threadIds);
+    }
+
+    // Threads whose last mail is gone for good
+    public void deleteEmptyThreads(Collection<Long> threadIds) {
+        if (!threadIds.isEmpty()) {
+            mailThreadRepository.deleteEmpty(threadIds);
+        }
+    }
+
+    // Keyset pagination on (lastActivityAt, id), most recent activity first
+    public ThreadPageResponse getThreads(Long userId, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<ThreadResponse> threads;
+        if (cursor == null || cursor.isBlank()) {
+            threads = userThreadRepository.findThreadPage(userId, pageable);
+        } else {
+            MailCursor after = MailCursor.decode(cursor);
+            threads = userThreadRepository.findThreadPageAfter(userId, after.getReceivedAt(), after.getId(), pageable);
+        }
+
+        boolean hasMore = threads.size() > pageSize;
+        if (hasMore) {
+            threads = threads.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            ThreadResponse last = threads.get(threads.size() - 1);
+            nextCursor = new MailCursor(last.getLastActivityAt(), last.getUserThreadId()).encode();
+        }
+        return new ThreadPageResponse(threads, nextCursor, hasMore);
+    }
+
+    // Earlier participants first; later ones are dropped once the cap is reached
+    private String mergeParticipants(String existing, Collection<String> emails) {
+        Set<String> merged = new LinkedHashSet<>();
+        if (existing != null && !existing.isEmpty()) {
+            merged.addAll(Arrays.asList(existing.split(",")));
+        }
+        int length = existing != null ? existing.length() : 0;
+        for (String email : emails) {
+            if (merged.size() >= MAX_PARTICIPANTS || length + email.length() + 1 > MAX_PARTICIPANTS_LENGTH) {
+                break;
+            }
+            if (merged.add(email)) {
+                length += email.length() + 1;
+            }
+        }
+        return String.join(",", merged);
+    }
+}
@@ -1,14 +1,30 @@
 package com.emailapp.emailservice.service;
 
 import com.emailapp.emailservice.dto.request.SignupRequest;
+import com.emailapp.emailservice.dto.response.UserImportResponse;
 import com.emailapp.emailservice.dto.response.UserResponse;
 import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.event.UserChangedEvent;
+import com.emailapp.emailservice.repository.UserImportRepository;
 import com.emailapp.emailservice.repository.UserRepository;
+import com.emailapp.emailservice.security.PasswordHashingExecutor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
 @Service
 public class UserService {
 
@@ -18,32 +34,176 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder; // Add this
 
-    @Transactional
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserImportRepository userImportRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${users.import.batch-size:1000}")
+    private int importBatchSize;
+
+    // Hashing tasks in flight on the password hashing pool; 0 = the whole pool, never more than it
+    @Value("${users.import.hash-threads:0}")
+    private int importHashThreads;
+
+    static final int MAX_IMPORT_ERRORS = 1000;
+
+    private final Semaphore importPermit = new Semaphore(1);
+
+    // Signup is a single INSERT: the unique constraints on username and email do the duplicate
+    // check, and no transaction (or connection) is held while the password is hashed
     public UserResponse registerUser(SignupRequest request) {
-        // Check if username exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
+        // Hash password before saving
+        String passwordHash = passwordHashingExecutor.execute(() -> passwordEncoder.encode(request.getPassword()));
+
+        User user = newUser(request, passwordHash);
+
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUserError(e);
         }
+        // Drops anything cached under this username or email once the insert commits
+        eventPublisher.publishEvent(UserChangedEvent.forUser(savedUser.getUsername(), savedUser.getEmail()));
+        return convertToResponse(savedUser);
+    }
 
-        // Check if email exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+    /**
+     * Bulk account import. Rows that fail validation, repeat a username or email within the
+     * request, or already exist are skipped before any hashing. The rest are processed in chunks:
+     * passwords are hashed in parallel on the login hashing pool itself (no cores of their own),
+     * then each chunk is written in one batched insert and announced, so committed accounts can
+     * receive mail while later chunks are still hashing. Only one import runs at a time.
+     */
+    public UserImportResponse importUsers(List<SignupRequest> requests) {
+        if (!importPermit.tryAcquire()) {
+            throw new IllegalStateException("Another user import is already running");
         }
+        try {
+            List<String> errors = new ArrayList<>();
+            int skipped = 0;
+
+            // Validation and in-request duplicates
+            List<Integer> candidates = new ArrayList<>();
+            Set<String> seenUsernames = new HashSet<>();
+            Set<String> seenEmails = new HashSet<>();
+            for (int i = 0; i < requests.size(); i++) {
+                SignupRequest request = requests.get(i);
+                String error = validationError(request);
+                if (error == null && !seenUsernames.add(request.getUsername())) {
+                    error = "Username already exists";
+                }
+                if (error == null && !seenEmails.add(request.getEmail())) {
+                    error = "Email already exists";
+                }
+                if (error != null) {
+                    skipped++;
+                    addError(errors, i, request, error);
+                } else {
+                    candidates.add(i);
+                }
+            }
+
+            int imported = 0;
+            for (int from = 0; from < candidates.size(); from += importBatchSize) {
+                List<SignupRequest> chunk = candidates.subList(from, Math.min(from + importBatchSize, candidates.size()))
+                        .stream().map(requests::get).toList();
 
-        // Create new user
+                // Accounts that already exist are skipped without hashing their passwords
+                Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                        chunk.stream().map(SignupRequest::getUsername).toList()));
+                Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(
+                        chunk.stream().map(SignupRequest::getEmail).toList()));
+                List<SignupRequest> fresh = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    SignupRequest request = chunk.get(i);
+                    if (existingUsernames.contains(request.getUsername())) {
+                        skipped++;
+                        addError(errors, candidates.get(from + i), request, "Username already exists");
+                    } else if (existingEmails.contains(request.getEmail())) {
+                        skipped++;
+                        addError(errors, candidates.get(from + i), request, "Email already exists");
+                    } else {
+                        fresh.add(request);
+                    }
+                }
+                if (fresh.isEmpty()) {
+                    continue;
+                }
+
+                List<User> users = passwordHashingExecutor.executeAll(fresh.stream()
+                        .<Callable<User>>map(request -> () -> newUser(request, passwordEncoder.encode(request.getPassword())))
+                        .toList(), importHashThreads);
+
+                // Rows that appeared concurrently are dropped by ON CONFLICT DO NOTHING
+                Set<String> inserted = new HashSet<>(userImportRepository.insertBatch(users));
+                List<String> importedUsernames = new ArrayList<>();
+                List<String> importedEmails = new ArrayList<>();
+                for (User user : users) {
+                    if (inserted.contains(user.getUsername())) {
+                        imported++;
+                        importedUsernames.add(user.getUsername());
+                        importedEmails.add(user.getEmail());
+                    } else {
+                        skipped++;
+                    }
+                }
+                if (!importedUsernames.isEmpty()) {
+                    eventPublisher.publishEvent(new UserChangedEvent(importedUsernames, importedEmails));
+                }
+            }
+
+            return new UserImportResponse(requests.size(), imported, skipped, errors);
+        } finally {
+            importPermit.release();
+        }
+    }
+
+    private String validationError(SignupRequest request) {
+        if (request == null) {
+            return "Empty row";
+        }
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    // Error lines are capped so a bad 100k-row file does not produce a 100k-line response
+    private void addError(List<String> errors, int index, SignupRequest request, String error) {
+        if (errors.size() < MAX_IMPORT_ERRORS) {
+            String who = request != null && request.getUsername() != null ? " (" + request.getUsername() + ")" : "";
+            errors.add("row " + index + who + ": " + error);
+        }
+    }
+
+    private User newUser(SignupRequest request, String passwordHash) {
         User user = new User();
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setEmail(request.getEmail());
         user.setUsername(request.getUsername());
-
-        // Hash password before saving
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-
+        user.setPassword(passwordHash);
         user.setGender(request.getGender());
+        return user;
+    }
 
-        User savedUser = userRepository.save(user);
-        return convertToResponse(savedUser);
+    // Maps a unique-constraint violation back to the message the old pre-checks produced
+    private RuntimeException duplicateUserError(DataIntegrityViolationException e) {
+        String detail = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        if (detail.contains("(username")) {
+            return new RuntimeException("Username already exists");
+        }
+        if (detail.contains("(email")) {
+            return new RuntimeException("Email already exists");
+        }
+        return new RuntimeException("Could not register user: " + e.getMostSpecificCause().getMessage());
     }
 
     public UserResponse getUserById(Long userId) {
@@ -0,0 +1,68 @@
+package com.emailapp.emailservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedLruCacheTests {
+
+    @Test
+    void staysWithinItsBound() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(100);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key" + i, i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(999, cache.get("key999"));
+    }
+
+    @Test
+    void recentlyReadEntriesOutliveNewerUnreadOnes() {
+        // A single segment: plain LRU
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertNull(cache.get("a"));
+
+        BoundedLruCache<Integer, Integer> segmented = new BoundedLruCache<>(32);
+        // Keys 0 and 16 share a segment of two entries
+        segmented.put(0, 0);
+        segmented.put(16, 16);
+        segmented.get(0);
+        segmented.put(32, 32);
+        assertEquals(0, segmented.get(0));
+        assertNull(segmented.get(16));
+    }
+
+    @Test
+    void zeroEntriesCachesNothing() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(0);
+        cache.put("a", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void computeIsAtomicPerKey() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(100);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    cache.compute("counter", (key, count) -> count == null ? 1 : count + 1);
+                }
+            }));
+        }
+        writers.forEach(CompletableFuture::join);
+
+        assertEquals(8_000, cache.get("counter"));
+        assertNull(cache.compute("counter", (key, count) -> null));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,87 @@
+package com.emailapp.emailservice.repository;
+
+import com.emailapp.emailservice.entity.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(UserMailboxBulkRepository.class)
+class UserMailboxBulkRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserMailboxBulkRepository userMailboxBulkRepository;
+
+    @Test
+    void bulkRowsAndEntityRowsDrawDisjointIdsFromTheSequence() {
+        User sender = persistUser("sender");
+        List<Long> recipientIds = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            recipientIds.add(persistUser("member" + i).getUserId());
+        }
+        Mail mail = new Mail();
+        mail.setSender(sender);
+        mail.setSubject("All hands");
+        mail = entityManager.persist(mail);
+
+        // Hibernate takes a block first, the bulk write three more, then Hibernate continues its block
+        persistMailbox(sender, mail, MailFolder.SENT);
+        entityManager.flush();
+        int written = userMailboxBulkRepository.insertUnread(
+                mail.getMailId(), recipientIds, MailRole.RECIPIENT, MailFolder.INBOX, LocalDateTime.now());
+        persistMailbox(sender, mail, MailFolder.INBOX);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(120, written);
+        List<UserMailbox> rows = entityManager.getEntityManager()
+                .createQuery("SELECT um FROM UserMailbox um WHERE um.mail.mailId = :mailId", UserMailbox.class)
+                .setParameter("mailId", mail.getMailId())
+                .getResultList();
+        assertEquals(122, rows.size());
+        Set<Long> ids = new HashSet<>();
+        rows.forEach(row -> ids.add(row.getId()));
+        assertEquals(122, ids.size());
+
+        UserMailbox delivered = rows.stream()
+                .filter(row -> row.getUser().getUserId().equals(recipientIds.get(0)))
+                .findFirst().orElseThrow();
+        assertEquals(MailFolder.INBOX, delivered.getFolder());
+        assertEquals(MailRole.RECIPIENT, delivered.getMailRole());
+        assertFalse(delivered.getIsRead());
+        assertFalse(delivered.getIsDeleted());
+        assertNotNull(delivered.getReceivedAt());
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+
+    private void persistMailbox(User user, Mail mail, MailFolder folder) {
+        UserMailbox mailbox = new UserMailbox();
+        mailbox.setUser(user);
+        mailbox.setMail(mail);
+        mailbox.setFolder(folder);
+        mailbox.setMailRole(folder == MailFolder.SENT ? MailRole.SENDER : MailRole.RECIPIENT);
+        entityManager.persist(mailbox);
+    }
+}
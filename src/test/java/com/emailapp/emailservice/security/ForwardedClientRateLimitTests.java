@@ -0,0 +1,102 @@
+package com.emailapp.emailservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A real Tomcat with the application's forwarded-header settings; the test client connects from loopback,
+// like a load balancer on the same host
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "security.login.rate-limit.ip-burst=2",
+                "security.login.rate-limit.ip-per-second=0.001"
+        })
+class ForwardedClientRateLimitTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void clientsBehindTheSameProxyAreLimitedSeparately() {
+        assertEquals("203.0.113.7", login("203.0.113.7", "alice").getBody());
+        assertEquals("203.0.113.7", login("203.0.113.7", "bob").getBody());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.7", "carol").getStatusCode());
+
+        ResponseEntity<String> other = login("198.51.100.23", "dave");
+        assertEquals(HttpStatus.OK, other.getStatusCode());
+        assertEquals("198.51.100.23", other.getBody());
+    }
+
+    private ResponseEntity<String> login(String clientIp, String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", clientIp);
+        return restTemplate.postForEntity("/login?username=" + username, new HttpEntity<>(headers), String.class);
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class
+    })
+    static class LoginEndpoint {
+
+        @Bean
+        LoginRateLimiter loginRateLimiter(Environment env) {
+            return new LoginRateLimiter(4096,
+                    env.getRequiredProperty("security.login.rate-limit.ip-burst", Integer.class),
+                    env.getRequiredProperty("security.login.rate-limit.ip-per-second", Double.class),
+                    100, 100.0, 1000, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        Controller controller(LoginRateLimiter loginRateLimiter) {
+            return new Controller(loginRateLimiter);
+        }
+    }
+
+    // Checks attempts like AuthController.login and echoes the address it limited
+    @RestController
+    static class Controller {
+
+        private final LoginRateLimiter loginRateLimiter;
+
+        Controller(LoginRateLimiter loginRateLimiter) {
+            this.loginRateLimiter = loginRateLimiter;
+        }
+
+        @PostMapping("/login")
+        ResponseEntity<String> login(@RequestParam String username, HttpServletRequest request) {
+            try {
+                loginRateLimiter.checkAttempt(request.getRemoteAddr(), username);
+                return ResponseEntity.ok(request.getRemoteAddr());
+            } catch (LoginThrottledException e) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+            }
+        }
+    }
+}
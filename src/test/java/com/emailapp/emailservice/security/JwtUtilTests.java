@@ -0,0 +1,114 @@
+package com.emailapp.emailservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTests {
+
+    static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    static JwtUtil jwtUtil(long expirationMs, int cacheEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "streamTicketExpiration", expirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", cacheEntries);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    void verifiedTokenIsServedFromTheCache() {
+        JwtUtil jwtUtil = jwtUtil(60_000, 100);
+        String token = jwtUtil.generateToken("alice", 7L);
+
+        Optional<Claims> first = jwtUtil.verify(token);
+        Optional<Claims> second = jwtUtil.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("alice", first.get().getSubject());
+        assertSame(first.get(), second.get());
+        assertEquals(7L, jwtUtil.extractUserId(token));
+    }
+
+    @Test
+    void tamperedTokenIsRejectedEvenAfterTheOriginalWasCached() {
+        JwtUtil jwtUtil = jwtUtil(60_000, 100);
+        String token = jwtUtil.generateToken("alice", 7L);
+        assertTrue(jwtUtil.verify(token).isPresent());
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.verify(tampered).isEmpty());
+        assertFalse(jwtUtil.validateToken(tampered));
+    }
+
+    @Test
+    void streamTicketAndSessionTokenAreNotInterchangeable() {
+        JwtUtil jwtUtil = jwtUtil(60_000, 100);
+        String session = jwtUtil.generateToken("alice", 7L);
+        String ticket = jwtUtil.generateStreamTicket("alice", 7L);
+
+        assertTrue(jwtUtil.verifySession(session).isPresent());
+        assertTrue(jwtUtil.verifyStreamTicket(session).isEmpty());
+        assertTrue(jwtUtil.verifySession(ticket).isEmpty());
+        assertFalse(jwtUtil.validateToken(ticket));
+        assertEquals(7L, jwtUtil.verifyStreamTicket(ticket).get().get("userId", Long.class));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtUtil jwtUtil = jwtUtil(-1_000, 100);
+        String token = jwtUtil.generateToken("alice", 7L);
+
+        assertTrue(jwtUtil.verify(token).isEmpty());
+    }
+
+    @Test
+    void cacheStaysWithinItsBoundAndDropsExpiredEntriesFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(3);
+        long now = System.currentTimeMillis();
+        cache.put("expired", claims(now - 1_000), now - 2_000);
+        cache.put("a", claims(now + 60_000), now);
+        cache.put("b", claims(now + 60_000), now);
+
+        cache.put("c", claims(now + 60_000), now);
+        assertNull(cache.get("expired", now));
+        assertNotNull(cache.get("a", now));
+        assertNotNull(cache.get("c", now));
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("token" + i, claims(now + 60_000), now);
+        }
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get("token9", now));
+    }
+
+    @Test
+    void fullCacheFreesATenthAtOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            cache.put("token" + i, claims(now + 60_000), now);
+        }
+
+        cache.put("token100", claims(now + 60_000), now);
+        assertEquals(91, cache.size());
+        // The next nine new tokens fit without another pass
+        for (int i = 101; i < 110; i++) {
+            cache.put("token" + i, claims(now + 60_000), now);
+        }
+        assertEquals(100, cache.size());
+    }
+
+    private static Claims claims(long expiresAtMillis) {
+        return Jwts.claims().setExpiration(new Date(expiresAtMillis));
+    }
+}
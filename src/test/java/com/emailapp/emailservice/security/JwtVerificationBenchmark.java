@@ -0,0 +1,104 @@
+package com.emailapp.emailservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JWT authentication in JwtAuthenticationFilter.
+ * Run from the IDE, or after mvn test-compile with the test classpath:
+ * java -cp target/test-classes:target/classes:<deps> com.emailapp.emailservice.security.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private String token;
+    private JwtParser parser;
+    private JwtUtil cached;
+    private JwtUtil uncached;
+
+    @Setup
+    public void setup() {
+        cached = JwtUtilTests.jwtUtil(3_600_000, 10_000);
+        uncached = JwtUtilTests.jwtUtil(3_600_000, 0);
+        token = cached.generateToken("alice", 7L);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(JwtUtilTests.SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    // Previous filter path: extractUsername + validateToken (username + expiration), each
+    // rebuilding the key and parser and re-verifying the HMAC
+    @Benchmark
+    public boolean threeParses() {
+        String username = legacyClaims().getSubject();
+        return username.equals(legacyClaims().getSubject()) && !legacyClaims().getExpiration().before(new Date());
+    }
+
+    // Singleton key and parser, one verification per request
+    @Benchmark
+    public Claims singleParse() {
+        return uncached.verify(token).orElseThrow();
+    }
+
+    // The floor the cache has to beat: parseClaimsJws on a prebuilt parser, nothing around it
+    @Benchmark
+    public Claims plainParse() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // Repeat request with the same token: map lookup instead of HMAC verification
+    @Benchmark
+    public Claims cachedVerify() {
+        return cached.verify(token).orElseThrow();
+    }
+
+    // As above, with request threads hitting the cache at once
+    @Benchmark
+    @Threads(8)
+    public Claims plainParseConcurrent() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims cachedVerifyConcurrent() {
+        return cached.verify(token).orElseThrow();
+    }
+
+    private Claims legacyClaims() {
+        SecretKey key = Keys.hmacShaKeyFor(JwtUtilTests.SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
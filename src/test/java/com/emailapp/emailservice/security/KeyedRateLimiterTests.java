@@ -0,0 +1,47 @@
+package com.emailapp.emailservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedRateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void burstIsAllowedThenRefillsAtTheConfiguredRate() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(100, 3, 1.0, now::get);
+
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+
+        now.addAndGet(1_000_000_000L);
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+    }
+
+    @Test
+    void sprayingOtherUsernamesNeverUsesAnotherUsersBudget() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(10_000, 1, 0.1, now::get);
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(limiter.tryAcquire("user" + i));
+            assertFalse(limiter.tryAcquire("user" + i));
+        }
+        assertTrue(limiter.tryAcquire("alice"));
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreForgottenPastTheBound() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(100, 1, 1.0, now::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+        assertEquals(100, limiter.size());
+    }
+}
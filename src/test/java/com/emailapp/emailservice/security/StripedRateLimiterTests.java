@@ -0,0 +1,35 @@
+package com.emailapp.emailservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void burstIsAllowedThenRefillsAtTheConfiguredRate() {
+        StripedRateLimiter limiter = new StripedRateLimiter(64, 3, 1.0, now::get);
+
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+
+        now.addAndGet(1_000_000_000L);
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+    }
+
+    @Test
+    void keysOnDifferentStripesHaveSeparateBudgets() {
+        StripedRateLimiter limiter = new StripedRateLimiter(64, 1, 1.0, now::get);
+
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("bob"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.emailapp.emailservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AIServiceBatchTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AiProvider provider = new StubAiProvider() {
+        @Override
+        public String generate(String prompt) {
+            calls.incrementAndGet();
+            return super.generate(prompt);
+        }
+    };
+
+    private AIService aiService(int maxPromptTokens, int maxItems) {
+        AiExecutionLane lane = new AiExecutionLane(4, 16, 2_000, 5_000, 5, 30_000, meterRegistry);
+        return new AIService(provider, lane, meterRegistry, 100, 60, maxPromptTokens, maxItems);
+    }
+
+    @Test
+    void batchAnswersAreMappedBackToMailIds() {
+        AIService aiService = aiService(6_000, 20);
+        Map<Long, String> contents = new LinkedHashMap<>();
+        contents.put(10L, "Quarterly report is due Friday");
+        contents.put(11L, "Lunch moved to noon");
+        contents.put(12L, "Quarterly report is due Friday");  // same body, e.g. a broadcast
+
+        Map<Long, String> summaries = aiService.summarizeBatch(contents);
+
+        assertEquals(1, calls.get());
+        assertEquals("Quarterly report is due Friday", summaries.get(10L));
+        assertEquals("Lunch moved to noon", summaries.get(11L));
+        assertEquals(summaries.get(10L), summaries.get(12L));
+
+        // Batch answers are cached for the single-mail endpoint
+        assertEquals("Lunch moved to noon", aiService.summarizeMail("Lunch moved to noon"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void mailsArePackedIntoSeveralPromptsWithinTheBudget() {
+        AIService aiService = aiService(6_000, 2);
+        Map<Long, String> contents = new LinkedHashMap<>();
+        for (long id = 1; id <= 5; id++) {
+            contents.put(id, "Mail number " + id);
+        }
+
+        Map<Long, String> summaries = aiService.summarizeBatch(contents);
+
+        assertEquals(5, summaries.size());
+        assertEquals("Mail number 4", summaries.get(4L));
+        assertEquals(3, calls.get());  // 2 + 2 + 1 (a lone mail is summarized on its own)
+    }
+}
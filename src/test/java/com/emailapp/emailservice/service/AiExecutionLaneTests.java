@@ -0,0 +1,192 @@
+package com.emailapp.emailservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiExecutionLaneTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void slowCallIsCancelledAtItsDeadline() {
+        AiExecutionLane lane = lane(1, 0, 100, 3, 60_000);
+        StubAiProvider provider = new StubAiProvider(5_000);
+
+        long start = System.nanoTime();
+        assertThrows(AiUnavailableException.class, () -> lane.execute(() -> provider.generate("hi")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+        assertEquals(1.0, meterRegistry.counter("ai.call.rejected", "reason", "timeout").count());
+    }
+
+    @Test
+    void timedOutCallKeepsItsSlotUntilItReallyEnds() throws Exception {
+        AiExecutionLane lane = lane(1, 0, 100, 10, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        // Like a blocking HTTP call that ignores the interrupt
+        assertThrows(AiUnavailableException.class, () -> lane.execute(() -> {
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // keeps running
+                }
+            }
+            finished.countDown();
+            return "late";
+        }));
+        assertThrows(AiUnavailableException.class, () -> lane.execute(() -> "second"));
+        assertEquals(1.0, meterRegistry.counter("ai.call.rejected", "reason", "bulkhead").count());
+
+        release.countDown();
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals("third", lane.execute(() -> "third"));
+    }
+
+    @Test
+    void callsBeyondTheConcurrencyLimitAndQueueAreRejected() throws Exception {
+        AiExecutionLane lane = lane(1, 0, 5_000, 3, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<String> first = caller.submit(() -> lane.execute(() -> {
+            started.countDown();
+            release.await();
+            return "first";
+        }));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        assertThrows(AiUnavailableException.class, () -> lane.execute(() -> "second"));
+        assertEquals(1.0, meterRegistry.counter("ai.call.rejected", "reason", "bulkhead").count());
+
+        release.countDown();
+        assertEquals("first", first.get(2, TimeUnit.SECONDS));
+        caller.shutdown();
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndRecovers() throws Exception {
+        AiExecutionLane lane = lane(2, 0, 5_000, 3, 200);
+        StubAiProvider provider = new StubAiProvider(0);
+        provider.failing = true;
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> lane.execute(() -> provider.generate("hi")));
+        }
+        assertEquals(AiCircuitBreaker.State.OPEN, lane.getCircuitState());
+
+        // Fails fast without reaching the provider
+        assertThrows(AiUnavailableException.class, () -> lane.execute(() -> provider.generate("hi")));
+        assertEquals(3, provider.calls.get());
+
+        // After the open period a single successful trial closes the circuit
+        provider.failing = false;
+        Thread.sleep(250);
+        assertEquals("stub: hi", lane.execute(() -> provider.generate("hi")));
+        assertEquals(AiCircuitBreaker.State.CLOSED, lane.getCircuitState());
+    }
+
+    @Test
+    void aiServiceFallsBackWhenTheCircuitIsOpen() {
+        AiExecutionLane lane = lane(2, 0, 5_000, 1, 60_000);
+        StubAiProvider provider = new StubAiProvider(0);
+        AIService aiService = new AIService(provider, lane, meterRegistry, 100, 60, 6000, 20);
+
+        provider.failing = true;
+        assertEquals("Failed to generate summary due to an internal API error.",
+                aiService.summarizeMail("first mail"));
+
+        provider.failing = false;
+        assertEquals("AI summary is temporarily unavailable. Please try again shortly.",
+                aiService.summarizeMail("second mail"));
+        assertEquals(1, provider.calls.get());
+    }
+
+    @Test
+    void batchIsAnsweredUnavailableWithoutSingleCallsWhenTheCircuitIsOpen() {
+        AiExecutionLane lane = lane(2, 0, 5_000, 1, 60_000);
+        StubAiProvider provider = new StubAiProvider(0);
+        AIService aiService = new AIService(provider, lane, meterRegistry, 100, 60, 6000, 20);
+
+        provider.failing = true;
+        aiService.summarizeMail("first mail");
+        provider.failing = false;
+
+        Map<Long, String> summaries = aiService.summarizeBatch(Map.of(1L, "a", 2L, "b", 3L, "c"));
+        assertEquals(3, summaries.size());
+        summaries.values().forEach(summary ->
+                assertEquals("AI summary is temporarily unavailable. Please try again shortly.", summary));
+        assertEquals(1.0, meterRegistry.counter("ai.call.rejected", "reason", "circuit_open").count());
+        assertEquals(1, provider.calls.get());
+    }
+
+    @Test
+    void clientDisconnectDuringAStreamLeavesTheCircuitClosed() {
+        AiExecutionLane lane = lane(2, 0, 5_000, 1, 60_000);
+        StubAiProvider provider = new StubAiProvider(0);
+        AIService aiService = new AIService(provider, lane, meterRegistry, 100, 60, 6000, 20);
+
+        for (int i = 0; i < 3; i++) {
+            String content = "mail " + i;
+            assertThrows(UncheckedIOException.class, () -> aiService.streamSummary(content,
+                    chunk -> { throw new UncheckedIOException(new IOException("Broken pipe")); }, () -> false));
+        }
+        assertEquals(AiCircuitBreaker.State.CLOSED, lane.getCircuitState());
+        assertEquals("stub: hi", lane.execute(() -> provider.generate("hi")));
+    }
+
+    private AiExecutionLane lane(int maxConcurrent, int maxQueue, long callTimeoutMs,
+                                 int failureThreshold, long openMs) {
+        return new AiExecutionLane(maxConcurrent, maxQueue, 50, callTimeoutMs,
+                failureThreshold, openMs, meterRegistry);
+    }
+
+    // Local stand-in for the Gemini client: optional latency, switchable failures
+    private static class StubAiProvider implements AiProvider {
+
+        private final long latencyMs;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+
+        StubAiProvider(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public String modelName() {
+            return "stub";
+        }
+
+        @Override
+        public String generate(String prompt) {
+            calls.incrementAndGet();
+            if (latencyMs > 0) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted");
+                }
+            }
+            if (failing) {
+                throw new IllegalStateException("stub failure");
+            }
+            return "stub: " + prompt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.emailapp.emailservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentStoreTests {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        AttachmentStore store = new AttachmentStore(root.toString());
+        byte[] content = new byte[200_000];
+        Arrays.fill(content, (byte) 7);
+
+        AttachmentStore.StagedFile first = store.stage(new ByteArrayInputStream(content), 1_000_000);
+        store.commit(first, () -> { });
+        AttachmentStore.StagedFile second = store.stage(new ByteArrayInputStream(content), 1_000_000);
+        store.commit(second, () -> { });
+
+        assertEquals(first.sha256(), second.sha256());
+        assertEquals(200_000, first.sizeBytes());
+        assertArrayEquals(content, Files.readAllBytes(store.pathFor(first.sha256())));
+        assertFalse(Files.exists(first.tempFile()));
+        assertFalse(Files.exists(second.tempFile()));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void contentIsAddressedBySha256() throws Exception {
+        AttachmentStore store = new AttachmentStore(root.toString());
+
+        AttachmentStore.StagedFile staged = store.stage(
+                new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), 1_000);
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", staged.sha256());
+        assertEquals(root.resolve("ba").resolve("78").resolve(staged.sha256()), store.pathFor(staged.sha256()));
+    }
+
+    @Test
+    void oversizedUploadIsRejectedAndLeavesNothingBehind() throws Exception {
+        AttachmentStore store = new AttachmentStore(root.toString());
+
+        assertThrows(AttachmentTooLargeException.class,
+                () -> store.stage(new ByteArrayInputStream(new byte[2_000]), 1_000));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void fileIsKeptWhileStillReferenced() throws Exception {
+        AttachmentStore store = new AttachmentStore(root.toString());
+        AttachmentStore.StagedFile staged = store.stage(new ByteArrayInputStream(new byte[]{1, 2, 3}), 1_000);
+        store.commit(staged, () -> { });
+        Path stored = store.pathFor(staged.sha256());
+
+        store.deleteIfUnreferenced(staged.sha256(), () -> true);
+        assertTrue(Files.exists(stored));
+
+        store.deleteIfUnreferenced(staged.sha256(), () -> false);
+        assertFalse(Files.exists(stored));
+    }
+}
@@ -0,0 +1,73 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.event.UserChangedEvent;
+import com.emailapp.emailservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CustomUserDetailsService service = new CustomUserDetailsService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(service, "cacheTtlSeconds", 300L);
+        service.init();
+
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("$2a$10$hash");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void tokenPrincipalIsLoadedOnceAndHoldsNoPassword() {
+        assertEquals("alice", service.loadUserForToken("alice").getUsername());
+        assertEquals("", service.loadUserForToken("alice").getPassword());
+
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void userChangeEvictsTheCachedPrincipal() {
+        service.loadUserForToken("alice");
+        service.onUserChanged(UserChangedEvent.forUser("alice", "alice@example.com"));
+        service.loadUserForToken("alice");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void loadOvertakenByAnEvictionIsNotCached() {
+        User user = new User();
+        user.setUsername("alice");
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> {
+            service.evict("alice");
+            return Optional.of(user);
+        });
+
+        assertEquals("alice", service.loadUserForToken("alice").getUsername());
+        service.loadUserForToken("alice");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void passwordLoginAlwaysReadsTheDatabase() {
+        service.loadUserForToken("alice");
+        assertEquals("$2a$10$hash", service.loadUserByUsername("alice").getPassword());
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+}
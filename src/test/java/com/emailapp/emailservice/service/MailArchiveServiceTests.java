@@ -0,0 +1,166 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.config.MailboxPartitionManager;
+import com.emailapp.emailservice.config.SchemaInitializer;
+import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Archive chunks lock with SKIP LOCKED and move counters with upserts, so this runs against PostgreSQL,
+// on a user_mailbox partitioned by month as archival is meant to be used
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "mail.archive.enabled=true",
+        "mail.archive.after-months=12",
+        "mail.partitioning.enabled=true",
+        "mail.partitioning.convert-on-startup=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresTestConfiguration.class, SchemaInitializer.class, MailServiceTestConfiguration.class,
+        MailboxPartitionManager.class})
+class MailArchiveServiceTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailArchiveService mailArchiveService;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setFirstName("owner");
+        owner.setLastName("Test");
+        owner.setEmail("owner@example.com");
+        owner.setUsername("owner");
+        owner.setPassword("secret");
+        owner = entityManager.persist(owner);
+    }
+
+    @Test
+    void oldMailIsArchivedWithItsCountsAndCompacted() {
+        LocalDateTime old = mailArchiveService.archiveCutoff().minusDays(1);
+        UserMailbox oldUnread = persistMailbox("old news", MailFolder.INBOX, false, old);
+        UserMailbox oldSent = persistMailbox("old reply", MailFolder.SENT, true, old);
+        UserMailbox recent = persistMailbox("recent news", MailFolder.INBOX, false, LocalDateTime.now());
+        mailboxCounterService.adjustUnread(owner.getUserId(), MailFolder.INBOX, 2);
+
+        assertEquals(2, mailArchiveService.archiveChunk(100));
+        assertEquals(0, mailArchiveService.archiveChunk(100));
+        entityManager.flush();
+        entityManager.clear();
+
+        for (UserMailbox archived : new UserMailbox[]{oldUnread, oldSent}) {
+            UserMailbox row = entityManager.find(UserMailbox.class, archived.getId());
+            assertEquals(MailFolder.ARCHIVED, row.getFolder());
+            assertTrue(row.getIsArchived());
+            assertEquals(BodyEncoding.GZIP, row.getMail().getBody().getEncoding());
+            assertEquals("Body of " + row.getMail().getSubject() + " " + "x".repeat(500),
+                    mailBodyCodec.decode(row.getMail().getBody()));
+        }
+        UserMailbox kept = entityManager.find(UserMailbox.class, recent.getId());
+        assertEquals(MailFolder.INBOX, kept.getFolder());
+        assertEquals(BodyEncoding.PLAIN, kept.getMail().getBody().getEncoding());
+        assertEquals(1, unread(MailFolder.INBOX));
+        assertEquals(1, unread(MailFolder.ARCHIVED));
+    }
+
+    @Test
+    void listingsSkipOnlyWhatHasBeenArchived() {
+        LocalDateTime cutoff = mailArchiveService.archiveCutoff();
+        UserMailbox old = persistMailbox("old news", MailFolder.INBOX, true, cutoff.minusMonths(2));
+        UserMailbox recent = persistMailbox("recent news", MailFolder.INBOX, true, LocalDateTime.now());
+
+        // Nothing archived yet: the inbox still reads every month
+        assertEquals(List.of(recent.getMail().getMailId(), old.getMail().getMailId()), inbox());
+
+        // A run cut short records no cutoff: mail it has not reached yet is still listed
+        assertEquals(1, mailArchiveService.archiveChunk(1));
+        UserMailbox notYet = persistMailbox("not archived yet", MailFolder.INBOX, true, cutoff.minusDays(1));
+        assertTrue(inbox().contains(notYet.getMail().getMailId()));
+
+        while (mailArchiveService.archiveChunk(1) > 0) {
+            // Next chunk
+        }
+        assertEquals(cutoff, mailArchiveService.listingLowerBound(MailFolder.INBOX));
+        assertEquals(cutoff, entityManager.find(MaintenanceState.class, MailArchiveService.ARCHIVE_STATE).getMark());
+        assertEquals(List.of(recent.getMail().getMailId()), inbox());
+        assertEquals(2, mailService.getArchived(owner.getUserId(), null, 20).getMails().size());
+    }
+
+    @Test
+    void compactionIsDecodedLikeAnyOtherBody() {
+        MailBody plain = new MailBodyCodec(Integer.MAX_VALUE).encode("Body of old news " + "x".repeat(500));
+        assertEquals(BodyEncoding.PLAIN, plain.getEncoding());
+        MailBody cold = new MailBody();
+        cold.setEncoding(BodyEncoding.GZIP);
+        cold.setData(mailBodyCodec.compactForArchive(plain));
+        assertTrue(cold.getData().length < plain.getData().length);
+        assertEquals(mailBodyCodec.decode(plain), mailBodyCodec.decode(cold));
+        assertNull(mailBodyCodec.compactForArchive(cold));
+    }
+
+    private UserMailbox persistMailbox(String subject, MailFolder folder, boolean read, LocalDateTime receivedAt) {
+        // Stored uncompressed, as short mails are
+        MailBody body = entityManager.persist(new MailBodyCodec(Integer.MAX_VALUE)
+                .encode("Body of " + subject + " " + "x".repeat(500)));
+        Mail mail = new Mail();
+        mail.setSender(owner);
+        mail.setSubject(subject);
+        mail.setBody(body);
+        mail = entityManager.persist(mail);
+
+        UserMailbox mailbox = new UserMailbox();
+        mailbox.setUser(owner);
+        mailbox.setMail(mail);
+        mailbox.setFolder(folder);
+        mailbox.setMailRole(folder == MailFolder.SENT ? MailRole.SENDER : MailRole.RECIPIENT);
+        mailbox.setIsRead(read);
+        mailbox = entityManager.persist(mailbox);
+        // Set after persist, which stamps the current time
+        mailbox.setReceivedAt(receivedAt);
+        entityManager.flush();
+        return mailbox;
+    }
+
+    private List<Long> inbox() {
+        entityManager.flush();
+        entityManager.clear();
+        return mailService.getInbox(owner.getUserId(), null, 20).getMails().stream()
+                .map(MailResponse::getMailId).toList();
+    }
+
+    private long unread(MailFolder folder) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT c.unreadCount FROM MailboxCounter c WHERE c.userId = :userId AND c.folder = :folder",
+                        Long.class)
+                .setParameter("userId", owner.getUserId())
+                .setParameter("folder", folder)
+                .getResultStream().findFirst().orElse(0L);
+    }
+}
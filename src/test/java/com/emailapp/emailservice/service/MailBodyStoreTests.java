@@ -0,0 +1,63 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.MailBody;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Release only; acquire is PostgreSQL SQL
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({MailBodyStore.class, MailBodyCodec.class})
+class MailBodyStoreTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailBodyStore mailBodyStore;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    @Test
+    void sharedBodyIsDeletedWithItsLastReference() {
+        MailBody shared = persistBody("Quarterly announcement", 2);
+
+        mailBodyStore.release(List.of(shared.getBodyId()));
+        assertEquals(1, find(shared).getRefCount());
+
+        mailBodyStore.release(List.of(shared.getBodyId()));
+        assertNull(find(shared));
+    }
+
+    @Test
+    void bodyListedTwiceLosesTwoReferences() {
+        MailBody shared = persistBody("Weekly report", 3);
+        MailBody other = persistBody("Minutes", 1);
+
+        mailBodyStore.release(List.of(shared.getBodyId(), other.getBodyId(), shared.getBodyId()));
+        assertEquals(1, find(shared).getRefCount());
+        assertNull(find(other));
+    }
+
+    private MailBody persistBody(String content, int refCount) {
+        MailBody body = mailBodyCodec.encode(content);
+        body.setRefCount(refCount);
+        body = entityManager.persist(body);
+        entityManager.flush();
+        entityManager.clear();
+        return body;
+    }
+
+    private MailBody find(MailBody body) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.find(MailBody.class, body.getBodyId());
+    }
+}
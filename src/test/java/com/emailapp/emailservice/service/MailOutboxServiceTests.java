@@ -0,0 +1,216 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.config.SchemaInitializer;
+import com.emailapp.emailservice.dto.request.SendMailRequest;
+import com.emailapp.emailservice.entity.MailOutbox;
+import com.emailapp.emailservice.entity.OutboxStatus;
+import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.repository.MailOutboxRepository;
+import com.emailapp.emailservice.repository.UserRepository;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Claims lock with SKIP LOCKED, so this runs against PostgreSQL. Each step commits on its own, as the
+// worker's do: a failed delivery rolls back, and its failure is recorded in a new transaction.
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "mail.outbox.max-attempts=3",
+        "mail.outbox.processing-timeout-ms=60000"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({PostgresTestConfiguration.class, SchemaInitializer.class, MailServiceTestConfiguration.class,
+        MailOutboxService.class})
+class MailOutboxServiceTests {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User sender;
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        sender = saveUser();
+        recipient = saveUser();
+    }
+
+    // Claims pick up whatever is due, so no test leaves records behind for the next
+    @AfterEach
+    void tearDown() {
+        mailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void claimedRecordsAreNotHandedOutTwice() {
+        Long first = enqueue(recipient.getEmail());
+        Long second = enqueue(recipient.getEmail());
+
+        List<MailOutboxService.Claim> claims = mailOutboxService.claimBatch(10);
+        assertEquals(List.of(first, second), claims.stream().map(MailOutboxService.Claim::outboxId).toList());
+        assertEquals(OutboxStatus.PROCESSING, status(first));
+        assertTrue(mailOutboxService.claimBatch(10).isEmpty());
+
+        mailOutboxService.deliver(claims.get(0));
+        MailOutbox delivered = mailOutboxRepository.findById(first).orElseThrow();
+        assertEquals(OutboxStatus.DELIVERED, delivered.getStatus());
+        assertNotNull(delivered.getMailId());
+        assertNull(delivered.getLockedAt());
+    }
+
+    @Test
+    void staleClaimIsReclaimedAndTheOldOneCannotDeliver() {
+        Long id = enqueue(recipient.getEmail());
+        mailOutboxService.claimBatch(10);
+
+        // The claiming worker stalled past the processing timeout
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+        outbox.setLockedAt(outbox.getLockedAt().minusMinutes(2));
+        mailOutboxRepository.save(outbox);
+        MailOutboxService.Claim stale = new MailOutboxService.Claim(id, outbox.getLockedAt());
+
+        MailOutboxService.Claim reclaimed = mailOutboxService.claimBatch(10).get(0);
+        assertEquals(id, reclaimed.outboxId());
+
+        mailOutboxService.deliver(stale);
+        mailOutboxService.recordFailure(stale, new RuntimeException("stalled"));
+        assertEquals(OutboxStatus.PROCESSING, status(id));
+        assertEquals(0, mailOutboxRepository.findById(id).orElseThrow().getAttempts());
+
+        mailOutboxService.deliver(reclaimed);
+        assertEquals(OutboxStatus.DELIVERED, status(id));
+    }
+
+    @Test
+    void releasedClaimsAreDueAgainWithoutAnAttempt() {
+        Long id = enqueue(recipient.getEmail());
+        List<MailOutboxService.Claim> claims = mailOutboxService.claimBatch(10);
+
+        mailOutboxService.releaseClaims(claims);
+
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, outbox.getStatus());
+        assertNull(outbox.getLockedAt());
+        assertEquals(0, outbox.getAttempts());
+        // The released claim no longer holds the record
+        mailOutboxService.deliver(claims.get(0));
+        assertEquals(OutboxStatus.PENDING, status(id));
+        assertEquals(List.of(id), mailOutboxService.claimBatch(10).stream().map(MailOutboxService.Claim::outboxId).toList());
+    }
+
+    @Test
+    void transientFailureIsRetriedUntilAttemptsRunOut() {
+        Long id = enqueue(recipient.getEmail());
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            if (attempt > 1) {
+                makeDue(id);
+            }
+            // As if the delivery lost its database connection
+            MailOutboxService.Claim claim = mailOutboxService.claimBatch(10).get(0);
+            mailOutboxService.recordFailure(claim, new RuntimeException("Connection reset"));
+
+            MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+            assertEquals(attempt, outbox.getAttempts());
+            assertEquals("Connection reset", outbox.getLastError());
+            if (attempt < 3) {
+                assertEquals(OutboxStatus.PENDING, outbox.getStatus());
+                assertTrue(outbox.getNextAttemptAt().isAfter(LocalDateTime.now()));
+                // Backing off: not due yet
+                assertTrue(mailOutboxService.claimBatch(10).isEmpty());
+            } else {
+                assertEquals(OutboxStatus.FAILED, outbox.getStatus());
+            }
+        }
+    }
+
+    @Test
+    void unknownRecipientFailsAtOnce() {
+        Long id = enqueue("nobody@example.com");
+
+        MailOutboxService.Claim claim = mailOutboxService.claimBatch(10).get(0);
+        RuntimeException failure = assertThrows(PermanentDeliveryException.class, () -> mailOutboxService.deliver(claim));
+        mailOutboxService.recordFailure(claim, failure);
+
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+        assertEquals(OutboxStatus.FAILED, outbox.getStatus());
+        assertEquals(1, outbox.getAttempts());
+        assertEquals("Recipient not found with email: nobody@example.com", outbox.getLastError());
+    }
+
+    @Test
+    void permanentFailureFailsAtOnce() {
+        SendMailRequest request = request(recipient.getEmail());
+        request.setAttachmentIds(List.of(Long.MAX_VALUE));
+        Long id = mailOutboxService.enqueue(sender.getUserId(), request).getOutboxId();
+
+        MailOutboxService.Claim claim = mailOutboxService.claimBatch(10).get(0);
+        RuntimeException failure = assertThrows(PermanentDeliveryException.class, () -> mailOutboxService.deliver(claim));
+        mailOutboxService.recordFailure(claim, failure);
+
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+        assertEquals(OutboxStatus.FAILED, outbox.getStatus());
+        assertEquals(1, outbox.getAttempts());
+        assertEquals("Attachment not found or already sent", outbox.getLastError());
+    }
+
+    private Long enqueue(String recipientEmail) {
+        return mailOutboxService.enqueue(sender.getUserId(), request(recipientEmail)).getOutboxId();
+    }
+
+    private SendMailRequest request(String recipientEmail) {
+        SendMailRequest request = new SendMailRequest();
+        request.setRecipientEmail(recipientEmail);
+        request.setSubject("hello");
+        request.setContent("Hello there");
+        return request;
+    }
+
+    private void makeDue(Long id) {
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow();
+        outbox.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        mailOutboxRepository.save(outbox);
+    }
+
+    private OutboxStatus status(Long id) {
+        return mailOutboxRepository.findById(id).orElseThrow().getStatus();
+    }
+
+    private User saveUser() {
+        String username = "outbox" + USERS.incrementAndGet();
+        User user = new User();
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,36 @@
+package com.emailapp.emailservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MailOutboxWorkerTests {
+
+    private final MailOutboxService mailOutboxService = mock(MailOutboxService.class);
+    private final MailOutboxWorker worker = new MailOutboxWorker(4);
+
+    @Test
+    void claimsTakenJustBeforeShutdownAreHandedBack() {
+        ReflectionTestUtils.setField(worker, "mailOutboxService", mailOutboxService);
+        ReflectionTestUtils.setField(worker, "batchSize", 50);
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutboxService.Claim> claims = List.of(
+                new MailOutboxService.Claim(1L, now), new MailOutboxService.Claim(2L, now));
+        when(mailOutboxService.claimBatch(4)).thenAnswer(invocation -> {
+            worker.shutdown();
+            return claims;
+        });
+
+        worker.poll();
+
+        verify(mailOutboxService).releaseClaims(claims);
+        verify(mailOutboxService, never()).deliver(any());
+        assertEquals(4, ((Semaphore) ReflectionTestUtils.getField(worker, "permits")).availablePermits());
+    }
+}
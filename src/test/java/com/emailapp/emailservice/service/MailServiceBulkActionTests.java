@@ -0,0 +1,120 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.BulkMailActionRequest;
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.MailTestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The mails are read, so moving them leaves the (PostgreSQL-only) unread counters alone
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(MailServiceTestConfiguration.class)
+class MailServiceBulkActionTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailTestData testData;
+
+    private User owner;
+    private UserMailbox first;
+    private UserMailbox second;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        first = persistMailbox("first");
+        second = persistMailbox("second");
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void movingIntoAndOutOfTheArchiveKeepsIsArchivedInStep() {
+        assertEquals(2, bulk(BulkMailActionRequest.Action.MOVE, MailFolder.ARCHIVED, first, second));
+        assertRow(first, MailFolder.ARCHIVED, true);
+        assertRow(second, MailFolder.ARCHIVED, true);
+        assertEquals(2, mailService.getArchived(owner.getUserId(), null, 20).getMails().size());
+
+        assertEquals(1, bulk(BulkMailActionRequest.Action.MOVE, MailFolder.INBOX, first));
+        assertRow(first, MailFolder.INBOX, false);
+        assertRow(second, MailFolder.ARCHIVED, true);
+
+        // Deleting archived mail moves it to trash, out of the archive
+        assertEquals(1, bulk(BulkMailActionRequest.Action.DELETE, null, second));
+        assertRow(second, MailFolder.TRASH, false);
+        assertTrue(mailService.getArchived(owner.getUserId(), null, 20).getMails().isEmpty());
+    }
+
+    @Test
+    void deletingOneArchivedMailTakesItOutOfTheArchive() {
+        bulk(BulkMailActionRequest.Action.MOVE, MailFolder.ARCHIVED, first);
+
+        mailService.deleteMail(owner.getUserId(), first.getMail().getMailId());
+        entityManager.flush();
+        entityManager.clear();
+        assertRow(first, MailFolder.TRASH, false);
+    }
+
+    @Test
+    void bulkMoveIsTheSameFewStatementsHoweverManyMails() {
+        List<UserMailbox> rows = new ArrayList<>(List.of(first, second));
+        for (int i = 0; i < 20; i++) {
+            rows.add(persistMailbox("more " + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        assertEquals(22, bulk(BulkMailActionRequest.Action.MOVE, MailFolder.ARCHIVED, rows.toArray(UserMailbox[]::new)));
+        // Lock the rows' IDs, count their unread mail by folder, move them
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private int bulk(BulkMailActionRequest.Action action, MailFolder targetFolder, UserMailbox... rows) {
+        BulkMailActionRequest request = new BulkMailActionRequest();
+        request.setAction(action);
+        request.setTargetFolder(targetFolder);
+        request.setMailIds(List.of(rows).stream().map(row -> row.getMail().getMailId()).toList());
+        int updated = mailService.applyBulkAction(owner.getUserId(), request);
+        entityManager.flush();
+        entityManager.clear();
+        return updated;
+    }
+
+    private void assertRow(UserMailbox row, MailFolder folder, boolean archived) {
+        UserMailbox current = entityManager.find(UserMailbox.class, row.getId());
+        assertEquals(folder, current.getFolder());
+        assertEquals(archived, current.getIsArchived());
+    }
+
+    private UserMailbox persistMailbox(String subject) {
+        UserMailbox mailbox = testData.mailbox(owner, testData.mail(owner, subject, "Body of " + subject), MailFolder.INBOX);
+        mailbox.setIsRead(true);
+        return mailbox;
+    }
+}
@@ -0,0 +1,150 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.response.MailPageResponse;
+import com.emailapp.emailservice.dto.response.MailResponse;
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.MailTestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(MailServiceTestConfiguration.class)
+class MailServiceListingTests {
+
+    private static final int MAILS_PER_FOLDER = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailTestData testData;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        for (int i = 0; i < MAILS_PER_FOLDER; i++) {
+            // A distinct sender per mail is the worst case for the old per-row association loads
+            User sender = testData.user("sender" + i);
+            testData.mailbox(owner, persistMail(sender, "inbox " + i), MailFolder.INBOX);
+            testData.mailbox(owner, persistMail(owner, "sent " + i), MailFolder.SENT);
+            testData.mailbox(owner, persistMail(sender, "trash " + i), MailFolder.TRASH);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void inboxPageIsASingleStatement() {
+        assertSingleStatementPerPage(MailFolder.INBOX);
+    }
+
+    @Test
+    void sentPageIsASingleStatement() {
+        assertSingleStatementPerPage(MailFolder.SENT);
+    }
+
+    @Test
+    void trashPageIsASingleStatement() {
+        assertSingleStatementPerPage(MailFolder.TRASH);
+    }
+
+    @Test
+    void onlyTheDetailViewLoadsTheBody() {
+        MailPageResponse page = listFolder(MailFolder.INBOX, null);
+        assertNull(page.getMails().get(0).getContent());
+
+        Long mailId = page.getMails().get(0).getMailId();
+        MailResponse detail = mailService.getMail(owner.getUserId(), mailId);
+        assertEquals(page.getMails().get(0).getSubject(), detail.getSubject());
+        assertTrue(detail.getContent().startsWith("Body of " + detail.getSubject()));
+        assertEquals(2000 + ("Body of " + detail.getSubject()).length(), detail.getContent().length());
+    }
+
+    @Test
+    void threadMessagesAreListedOldestFirst() {
+        MailThread thread = new MailThread();
+        thread.setSubject("plans");
+        thread = entityManager.persist(thread);
+        Mail first = persistMail(testData.user("other"), "plans");
+        first.setThreadId(thread.getThreadId());
+        Mail reply = persistMail(owner, "Re: plans");
+        reply.setThreadId(thread.getThreadId());
+        reply.setInReplyTo(first.getMailId());
+        testData.mailbox(owner, first, MailFolder.INBOX);
+        testData.mailbox(owner, reply, MailFolder.SENT);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<MailResponse> messages = mailService.getThreadMessages(owner.getUserId(), thread.getThreadId());
+        assertEquals(List.of(first.getMailId(), reply.getMailId()),
+                messages.stream().map(MailResponse::getMailId).toList());
+    }
+
+    @Test
+    void archivedMailIsListedOnItsOwn() {
+        Mail mail = persistMail(owner, "old news");
+        testData.mailbox(owner, mail, MailFolder.ARCHIVED).setIsArchived(true);
+        entityManager.flush();
+        entityManager.clear();
+
+        MailPageResponse archive = mailService.getArchived(owner.getUserId(), null, 20);
+        assertEquals(1, archive.getMails().size());
+        assertEquals("ARCHIVED", archive.getMails().get(0).getFolder());
+        assertTrue(mailService.getInbox(owner.getUserId(), null, 20).getMails().stream()
+                .noneMatch(listed -> listed.getMailId().equals(mail.getMailId())));
+    }
+
+    private void assertSingleStatementPerPage(MailFolder folder) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        MailPageResponse first = listFolder(folder, null);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(20, first.getMails().size());
+        assertTrue(first.getHasMore());
+        assertNotNull(first.getMails().get(0).getSenderEmail());
+
+        statistics.clear();
+        MailPageResponse second = listFolder(folder, first.getNextCursor());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(MAILS_PER_FOLDER - 20, second.getMails().size());
+        assertFalse(second.getHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    private MailPageResponse listFolder(MailFolder folder, String cursor) {
+        return switch (folder) {
+            case INBOX -> mailService.getInbox(owner.getUserId(), cursor, 20);
+            case SENT -> mailService.getSentMails(owner.getUserId(), cursor, 20);
+            case TRASH -> mailService.getTrash(owner.getUserId(), cursor, 20);
+            default -> throw new IllegalArgumentException("Unsupported folder " + folder);
+        };
+    }
+
+    private Mail persistMail(User sender, String subject) {
+        return testData.mail(sender, subject, "Body of " + subject + " ".repeat(2000));
+    }
+}
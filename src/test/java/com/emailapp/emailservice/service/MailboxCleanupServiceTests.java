@@ -0,0 +1,148 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.repository.UserThreadBulkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Purging mails whose rows are all deleted; the rows are read, so no unread counter is touched
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({MailboxCleanupService.class, MailBodyStore.class, MailBodyCodec.class, AttachmentService.class,
+        AttachmentStore.class, MailboxCounterService.class, ThreadSummaryService.class, UserThreadBulkRepository.class})
+class MailboxCleanupServiceTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailboxCleanupService mailboxCleanupService;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = persistUser("owner");
+    }
+
+    @Test
+    void sharedBodyIsDeletedWithItsLastMail() {
+        MailBody shared = mailBodyCodec.encode("Quarterly announcement");
+        shared.setRefCount(2);
+        shared = entityManager.persist(shared);
+        Mail first = persistMail("announcement", shared);
+        Mail second = persistMail("announcement again", shared);
+        UserMailbox kept = persistMailbox(first, false);
+        persistMailbox(second, true);
+
+        purgeDeletedMails();
+        assertNotNull(entityManager.find(Mail.class, first.getMailId()));
+        assertNull(entityManager.find(Mail.class, second.getMailId()));
+        assertEquals(1, entityManager.find(MailBody.class, shared.getBodyId()).getRefCount());
+
+        markDeleted(kept);
+        purgeDeletedMails();
+        assertNull(entityManager.find(Mail.class, first.getMailId()));
+        assertNull(entityManager.find(MailBody.class, shared.getBodyId()));
+    }
+
+    @Test
+    void mailIsNotPurgedWhileItsBroadcastIsRunning() {
+        Mail broadcast = persistMail("announcement", entityManager.persist(mailBodyCodec.encode("Hello all")));
+        persistMailbox(broadcast, true);
+        BroadcastJob job = new BroadcastJob();
+        job.setListId(1L);
+        job.setSenderId(owner.getUserId());
+        job.setMailId(broadcast.getMailId());
+        job.setTotalRecipients(10_000);
+        job.setStatus(BroadcastStatus.RUNNING);
+        job = entityManager.persist(job);
+
+        purgeDeletedMails();
+        assertNotNull(entityManager.find(Mail.class, broadcast.getMailId()));
+
+        entityManager.find(BroadcastJob.class, job.getId()).setStatus(BroadcastStatus.COMPLETED);
+        purgeDeletedMails();
+        assertNull(entityManager.find(Mail.class, broadcast.getMailId()));
+    }
+
+    @Test
+    void threadIsDroppedWithItsLastMail() {
+        MailThread thread = new MailThread();
+        thread.setSubject("plans");
+        thread.setMessageCount(2);
+        thread = entityManager.persist(thread);
+        Mail first = persistMail("plans", entityManager.persist(mailBodyCodec.encode("Shall we?")));
+        first.setThreadId(thread.getThreadId());
+        Mail reply = persistMail("Re: plans", entityManager.persist(mailBodyCodec.encode("Sure")));
+        reply.setThreadId(thread.getThreadId());
+        UserMailbox kept = persistMailbox(first, false);
+        persistMailbox(reply, true);
+
+        purgeDeletedMails();
+        assertNotNull(entityManager.find(MailThread.class, thread.getThreadId()));
+
+        markDeleted(kept);
+        purgeDeletedMails();
+        assertNull(entityManager.find(MailThread.class, thread.getThreadId()));
+    }
+
+    // Two sweeps: the first may resume mid-way from an earlier test's
+    private void purgeDeletedMails() {
+        entityManager.flush();
+        for (int sweep = 0; sweep < 2; sweep++) {
+            while (mailboxCleanupService.purgeDeletedMails(100) > 0) {
+                // Next chunk
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void markDeleted(UserMailbox mailbox) {
+        UserMailbox row = entityManager.find(UserMailbox.class, mailbox.getId());
+        row.setIsDeleted(true);
+        row.setDeletedAt(LocalDateTime.now());
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+
+    private Mail persistMail(String subject, MailBody body) {
+        Mail mail = new Mail();
+        mail.setSender(owner);
+        mail.setSubject(subject);
+        mail.setBody(body);
+        return entityManager.persist(mail);
+    }
+
+    // The owner's read copy in trash, deleted for good or not yet
+    private UserMailbox persistMailbox(Mail mail, boolean deleted) {
+        UserMailbox mailbox = new UserMailbox();
+        mailbox.setUser(owner);
+        mailbox.setMail(mail);
+        mailbox.setFolder(MailFolder.TRASH);
+        mailbox.setMailRole(MailRole.RECIPIENT);
+        mailbox.setIsRead(true);
+        mailbox.setIsDeleted(deleted);
+        mailbox.setDeletedAt(deleted ? LocalDateTime.now() : null);
+        return entityManager.persist(mailbox);
+    }
+}
@@ -0,0 +1,204 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.config.SchemaInitializer;
+import com.emailapp.emailservice.dto.request.BulkMailActionRequest;
+import com.emailapp.emailservice.dto.request.SendMailRequest;
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.repository.MaintenanceStateRepository;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.MailTestData;
+import com.emailapp.emailservice.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The counters are maintained with PostgreSQL upserts and row locks, so this runs against PostgreSQL,
+// with the schema SchemaInitializer completes
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresTestConfiguration.class, SchemaInitializer.class, MailServiceTestConfiguration.class})
+class MailboxCounterServiceTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailTestData testData;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailboxCounterService mailboxCounterService;
+
+    @Autowired
+    private MaintenanceStateRepository maintenanceStateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.user("alice");
+        bob = testData.user("bob");
+    }
+
+    @Test
+    void sendReadAndDeleteKeepTheCountersInStep() {
+        Long first = send(alice, bob);
+        Long second = send(alice, bob);
+        Long third = send(alice, bob);
+        assertEquals(3, unread(bob, MailFolder.INBOX));
+        assertEquals(0, unread(alice, MailFolder.SENT));
+
+        mailService.markAsRead(bob.getUserId(), first);
+        mailService.markAsRead(bob.getUserId(), first);
+        assertEquals(2, unread(bob, MailFolder.INBOX));
+
+        // Unread mail counts in trash until it is deleted for good
+        mailService.deleteMail(bob.getUserId(), second);
+        assertEquals(1, unread(bob, MailFolder.INBOX));
+        assertEquals(1, unread(bob, MailFolder.TRASH));
+        mailService.deleteMail(bob.getUserId(), second);
+        assertEquals(0, unread(bob, MailFolder.TRASH));
+
+        mailService.deleteMail(bob.getUserId(), first);
+        assertEquals(0, unread(bob, MailFolder.TRASH));
+        assertEquals(1, mailService.getUnreadCount(bob.getUserId()));
+        assertEquals(third, mailService.getInbox(bob.getUserId(), null, 20).getMails().get(0).getMailId());
+    }
+
+    @Test
+    void bulkActionsMoveTheCountsWithTheMail() {
+        List<Long> mailIds = List.of(send(alice, bob), send(alice, bob), send(alice, bob), send(alice, bob));
+        mailService.markAsRead(bob.getUserId(), mailIds.get(0));
+
+        bulk(BulkMailActionRequest.Action.MOVE, mailIds.subList(0, 2), MailFolder.TRASH);
+        assertEquals(2, unread(bob, MailFolder.INBOX));
+        assertEquals(1, unread(bob, MailFolder.TRASH));
+
+        bulk(BulkMailActionRequest.Action.READ, mailIds, null);
+        assertEquals(0, mailService.getUnreadCount(bob.getUserId()));
+        bulk(BulkMailActionRequest.Action.UNREAD, mailIds.subList(1, 4), null);
+        assertEquals(2, unread(bob, MailFolder.INBOX));
+        assertEquals(1, unread(bob, MailFolder.TRASH));
+
+        // Purges the one in trash, trashes the other
+        bulk(BulkMailActionRequest.Action.DELETE, mailIds.subList(1, 3), null);
+        assertEquals(1, unread(bob, MailFolder.INBOX));
+        assertEquals(1, unread(bob, MailFolder.TRASH));
+    }
+
+    @Test
+    void countersNeverGoBelowZero() {
+        mailboxCounterService.adjustUnread(bob.getUserId(), MailFolder.INBOX, -5);
+        assertEquals(0, unread(bob, MailFolder.INBOX));
+
+        mailboxCounterService.adjustUnread(List.of(alice.getUserId(), bob.getUserId()), MailFolder.INBOX, 2);
+        mailboxCounterService.adjustUnread(bob.getUserId(), MailFolder.INBOX, -3);
+        assertEquals(2, unread(alice, MailFolder.INBOX));
+        assertEquals(0, unread(bob, MailFolder.INBOX));
+    }
+
+    @Test
+    void reconciliationRepairsDriftOnePassPerInterval() {
+        send(alice, bob);
+        send(bob, alice);
+        mailboxCounterService.adjustUnread(bob.getUserId(), MailFolder.INBOX, 4);
+        mailboxCounterService.adjustUnread(alice.getUserId(), MailFolder.INBOX, -1);
+        mailboxCounterService.adjustUnread(alice.getUserId(), MailFolder.TRASH, 2);
+
+        int repaired = 0;
+        int batches = 0;
+        for (int batch; (batch = mailboxCounterService.reconcileBatch(1)) >= 0; batches++) {
+            repaired += batch;
+        }
+        assertEquals(2, batches);
+        assertEquals(3, repaired);
+        assertEquals(1, unread(bob, MailFolder.INBOX));
+        assertEquals(1, unread(alice, MailFolder.INBOX));
+        assertEquals(0, unread(alice, MailFolder.TRASH));
+
+        MaintenanceState state = maintenanceStateRepository.findById(MailboxCounterService.RECONCILE_STATE).orElseThrow();
+        assertEquals(0, state.getPosition());
+        assertNotNull(state.getCompletedAt());
+        // The finished pass is not started over before the interval, here or on another instance
+        assertEquals(-1, mailboxCounterService.reconcileBatch(1));
+    }
+
+    @Test
+    void anotherInstanceSkipsTheBatchInProgress() throws Exception {
+        // The other instance's transactions commit on their own, outside the test's
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status ->
+                maintenanceStateRepository.createIfAbsent(MailboxCounterService.RECONCILE_STATE));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherInstance = CompletableFuture.runAsync(() ->
+                transaction.executeWithoutResult(status -> {
+                    assertTrue(maintenanceStateRepository.lockIfFree(MailboxCounterService.RECONCILE_STATE).isPresent());
+                    locked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            assertEquals(-1, mailboxCounterService.reconcileBatch(100));
+        } finally {
+            release.countDown();
+            otherInstance.get(10, TimeUnit.SECONDS);
+            transaction.executeWithoutResult(status ->
+                    maintenanceStateRepository.deleteById(MailboxCounterService.RECONCILE_STATE));
+        }
+    }
+
+    private Long send(User sender, User recipient) {
+        SendMailRequest request = new SendMailRequest();
+        request.setRecipientEmail(recipient.getEmail());
+        request.setSubject("hello");
+        request.setContent("Hello " + recipient.getUsername());
+        return mailService.sendMail(sender.getUserId(), request).getMailId();
+    }
+
+    private void bulk(BulkMailActionRequest.Action action, List<Long> mailIds, MailFolder targetFolder) {
+        BulkMailActionRequest request = new BulkMailActionRequest();
+        request.setAction(action);
+        request.setMailIds(mailIds);
+        request.setTargetFolder(targetFolder);
+        mailService.applyBulkAction(bob.getUserId(), request);
+    }
+
+    private long unread(User user, MailFolder folder) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.getEntityManager()
+                .createQuery("SELECT c.unreadCount FROM MailboxCounter c WHERE c.userId = :userId AND c.folder = :folder",
+                        Long.class)
+                .setParameter("userId", user.getUserId())
+                .setParameter("folder", folder)
+                .getResultStream().findFirst().orElse(0L);
+    }
+}
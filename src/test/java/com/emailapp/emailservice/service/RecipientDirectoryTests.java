@@ -0,0 +1,107 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.event.UserChangedEvent;
+import com.emailapp.emailservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecipientDirectoryTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RecipientDirectory directory = new RecipientDirectory();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(directory, "userRepository", userRepository);
+        ReflectionTestUtils.setField(directory, "maxEntries", 100);
+        ReflectionTestUtils.setField(directory, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(directory, "unknownMaxEntries", 100);
+        ReflectionTestUtils.setField(directory, "unknownTtlSeconds", 60L);
+        directory.init();
+
+        when(userRepository.findByEmailIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).contains("alice@example.com") ? List.of(alice()) : List.of());
+    }
+
+    @Test
+    void unknownAddressIsLookedUpOnceThenRejectedFromMemory() {
+        assertTrue(directory.resolve(List.of("typo@example.com")).isEmpty());
+        assertTrue(directory.resolve(List.of("typo@example.com")).isEmpty());
+
+        verify(userRepository, times(1)).findByEmailIn(anyCollection());
+    }
+
+    @Test
+    void unknownAddressIsLookedUpAgainOnceItsTtlRunsOut() {
+        ReflectionTestUtils.setField(directory, "unknownTtlSeconds", 0L);
+
+        directory.resolve(List.of("typo@example.com"));
+        directory.resolve(List.of("typo@example.com"));
+
+        verify(userRepository, times(2)).findByEmailIn(List.of("typo@example.com"));
+    }
+
+    @Test
+    void signupMakesAnUnknownAddressReachable() {
+        assertTrue(directory.resolve(List.of("carol@example.com")).isEmpty());
+
+        User carol = new User();
+        carol.setUserId(3L);
+        carol.setEmail("carol@example.com");
+        carol.setUsername("carol");
+        when(userRepository.findByEmailIn(List.of("carol@example.com"))).thenReturn(List.of(carol));
+        directory.onUserChanged(UserChangedEvent.forUser("carol", "carol@example.com"));
+
+        assertEquals(3L, directory.resolve(List.of("carol@example.com")).get("carol@example.com").userId());
+    }
+
+    @Test
+    void knownAddressIsLoadedOnceThenServedFromMemory() {
+        assertEquals(1L, directory.resolve(List.of("alice@example.com")).get("alice@example.com").userId());
+        assertEquals(1L, directory.resolve(List.of("alice@example.com")).get("alice@example.com").userId());
+        assertEquals("Alice", directory.findById(1L).orElseThrow().firstName());
+
+        verify(userRepository, times(1)).findByEmailIn(anyCollection());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void userAddedElsewhereIsFoundWithoutAnyEvent() {
+        // Registered through another instance: this one never saw a UserChangedEvent
+        User bob = new User();
+        bob.setUserId(2L);
+        bob.setEmail("bob@example.com");
+        bob.setUsername("bob");
+        when(userRepository.findByEmailIn(List.of("bob@example.com"))).thenReturn(List.of(bob));
+
+        assertEquals(2L, directory.resolve(List.of("bob@example.com")).get("bob@example.com").userId());
+    }
+
+    @Test
+    void changedUserIsReloaded() {
+        directory.resolve(List.of("alice@example.com"));
+        directory.onUserChanged(UserChangedEvent.forUser("alice", "alice@example.com"));
+
+        directory.resolve(List.of("alice@example.com"));
+
+        verify(userRepository, times(2)).findByEmailIn(List.of("alice@example.com"));
+    }
+
+    private User alice() {
+        User user = new User();
+        user.setUserId(1L);
+        user.setEmail("alice@example.com");
+        user.setUsername("alice");
+        user.setFirstName("Alice");
+        user.setLastName("Smith");
+        return user;
+    }
+}
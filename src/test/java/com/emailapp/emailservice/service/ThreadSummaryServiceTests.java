@@ -0,0 +1,177 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.config.SchemaInitializer;
+import com.emailapp.emailservice.dto.request.BulkMailActionRequest;
+import com.emailapp.emailservice.dto.request.ReplyMailRequest;
+import com.emailapp.emailservice.dto.request.SendMailRequest;
+import com.emailapp.emailservice.dto.response.ThreadPageResponse;
+import com.emailapp.emailservice.dto.response.ThreadResponse;
+import com.emailapp.emailservice.entity.MailThread;
+import com.emailapp.emailservice.entity.User;
+import com.emailapp.emailservice.entity.UserThread;
+import com.emailapp.emailservice.support.MailServiceTestConfiguration;
+import com.emailapp.emailservice.support.MailTestData;
+import com.emailapp.emailservice.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Summaries are updated with array-based PostgreSQL statements, so this runs against PostgreSQL
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresTestConfiguration.class, SchemaInitializer.class, MailServiceTestConfiguration.class})
+class ThreadSummaryServiceTests {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailTestData testData;
+
+    @Autowired
+    private ThreadSummaryService threadSummaryService;
+
+    @Autowired
+    private MailService mailService;
+
+    @Test
+    void threadListingFollowsItsSummaries() {
+        MailThread thread = persistThread("plans", "other@example.com,owner@example.com");
+        persistSummary(thread, 2, 1, LocalDateTime.now());
+
+        List<ThreadResponse> threads = threadSummaryService.getThreads(USER_ID, null, 10).getThreads();
+        assertEquals(1, threads.size());
+        assertEquals(List.of("other@example.com", "owner@example.com"), threads.get(0).getParticipants());
+        assertEquals(2, threads.get(0).getMessageCount());
+
+        // Removing a row updates the summary; removing the last one drops it
+        threadSummaryService.removeRows(USER_ID, Map.of(thread.getThreadId(), new long[]{1, 1}));
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(1, threadSummaryService.getThreads(USER_ID, null, 10).getThreads().get(0).getMessageCount());
+
+        threadSummaryService.removeRows(USER_ID, Map.of(thread.getThreadId(), new long[]{1, 0}));
+        entityManager.flush();
+        entityManager.clear();
+        assertTrue(threadSummaryService.getThreads(USER_ID, null, 10).getThreads().isEmpty());
+    }
+
+    @Test
+    void threadsArePagedByLastActivity() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            persistSummary(persistThread("thread " + i, "owner@example.com"), 1, 0, now.minusHours(i));
+        }
+
+        ThreadPageResponse first = threadSummaryService.getThreads(USER_ID, null, 2);
+        assertEquals(List.of("thread 0", "thread 1"), first.getThreads().stream().map(ThreadResponse::getSubject).toList());
+        assertTrue(first.getHasMore());
+
+        ThreadPageResponse second = threadSummaryService.getThreads(USER_ID, first.getNextCursor(), 2);
+        assertEquals(List.of("thread 2"), second.getThreads().stream().map(ThreadResponse::getSubject).toList());
+        assertFalse(second.getHasMore());
+    }
+
+    @Test
+    void readingAcrossThreadsUpdatesEachThreadsUnreadCount() {
+        User alice = testData.user("alice");
+        User bob = testData.user("bob");
+        Long first = send(alice, bob, "plans");
+        send(alice, bob, "plans, again");
+        Long other = send(alice, bob, "lunch");
+        Long reply = mailService.replyToMail(bob.getUserId(), first, reply("sounds good")).getMailId();
+        mailService.replyToMail(alice.getUserId(), reply, reply("great"));
+
+        assertEquals(List.of(2, 1, 1), unreadCounts(bob));
+        bulk(bob, BulkMailActionRequest.Action.READ, List.of(first, other));
+        assertEquals(List.of(1, 0, 1), unreadCounts(bob));
+    }
+
+    @Test
+    void removingTheLatestMailPointsTheThreadAtTheOneBefore() {
+        User alice = testData.user("alice");
+        User bob = testData.user("bob");
+        Long first = send(alice, bob, "plans");
+        Long reply = mailService.replyToMail(bob.getUserId(), first, reply("sounds good")).getMailId();
+        assertEquals(reply, threads(alice).get(0).getLastMailId());
+
+        // Trash, then delete for good
+        mailService.deleteMail(alice.getUserId(), reply);
+        mailService.deleteMail(alice.getUserId(), reply);
+
+        ThreadResponse thread = threads(alice).get(0);
+        assertEquals(1, thread.getMessageCount());
+        assertEquals(first, thread.getLastMailId());
+        // Bob still has both
+        assertEquals(reply, threads(bob).get(0).getLastMailId());
+
+        // Emptied in bulk, the thread leaves the list
+        bulk(alice, BulkMailActionRequest.Action.DELETE, List.of(first));
+        bulk(alice, BulkMailActionRequest.Action.DELETE, List.of(first));
+        assertTrue(threads(alice).isEmpty());
+    }
+
+    private List<ThreadResponse> threads(User user) {
+        entityManager.flush();
+        entityManager.clear();
+        return threadSummaryService.getThreads(user.getUserId(), null, 10).getThreads();
+    }
+
+    // Per thread, most recently active first
+    private List<Integer> unreadCounts(User user) {
+        return threads(user).stream().map(ThreadResponse::getUnreadCount).toList();
+    }
+
+    private Long send(User sender, User recipient, String subject) {
+        SendMailRequest request = new SendMailRequest();
+        request.setRecipientEmail(recipient.getEmail());
+        request.setSubject(subject);
+        request.setContent("About " + subject);
+        return mailService.sendMail(sender.getUserId(), request).getMailId();
+    }
+
+    private ReplyMailRequest reply(String content) {
+        ReplyMailRequest request = new ReplyMailRequest();
+        request.setContent(content);
+        return request;
+    }
+
+    private void bulk(User user, BulkMailActionRequest.Action action, List<Long> mailIds) {
+        BulkMailActionRequest request = new BulkMailActionRequest();
+        request.setAction(action);
+        request.setMailIds(mailIds);
+        mailService.applyBulkAction(user.getUserId(), request);
+    }
+
+    private MailThread persistThread(String subject, String participants) {
+        MailThread thread = new MailThread();
+        thread.setSubject(subject);
+        thread.setParticipants(participants);
+        return entityManager.persist(thread);
+    }
+
+    private void persistSummary(MailThread thread, int messageCount, int unreadCount, LocalDateTime lastActivityAt) {
+        UserThread summary = new UserThread();
+        summary.setUserId(USER_ID);
+        summary.setThreadId(thread.getThreadId());
+        summary.setMessageCount(messageCount);
+        summary.setUnreadCount(unreadCount);
+        summary.setLastActivityAt(lastActivityAt);
+        entityManager.persist(summary);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,197 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.SignupRequest;
+import com.emailapp.emailservice.dto.response.UserImportResponse;
+import com.emailapp.emailservice.repository.UserImportRepository;
+import com.emailapp.emailservice.repository.UserRepository;
+import com.emailapp.emailservice.security.PasswordHashingExecutor;
+import com.emailapp.emailservice.support.PostgresTestConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Import inserts with unnest and ON CONFLICT, and the duplicate messages are read from PostgreSQL's
+// constraint details, so this runs against PostgreSQL
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "users.import.batch-size=2",
+        "security.password-hashing.threads=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresTestConfiguration.class, UserService.class, PasswordHashingExecutor.class, UserImportRepository.class,
+        UserServiceImportTests.Beans.class})
+class UserServiceImportTests {
+
+    // Records the threads that hashed, so the tests can tell hashing ran on the shared pool
+    static class RecordingEncoder extends BCryptPasswordEncoder {
+
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final List<CharSequence> encoded = new ArrayList<>();
+
+        RecordingEncoder() {
+            super(4);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            threads.add(Thread.currentThread().getName());
+            synchronized (encoded) {
+                encoded.add(rawPassword);
+            }
+            return super.encode(rawPassword);
+        }
+    }
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        RecordingEncoder passwordEncoder() {
+            return new RecordingEncoder();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private RecordingEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = (RecordingEncoder) passwordEncoder;
+        encoder.threads.clear();
+        encoder.encoded.clear();
+    }
+
+    @Test
+    void rowsAreImportedInChunksOnThePasswordHashingPool() {
+        UserImportResponse response = userService.importUsers(List.of(
+                row("alice", "alice@example.com"), row("bob", "bob@example.com"), row("carol", "carol@example.com")));
+
+        assertEquals(3, response.getImported());
+        assertEquals(0, response.getSkipped());
+        assertTrue(response.getErrors().isEmpty());
+        assertTrue(encoder.matches("secret-carol", userRepository.findByUsername("carol").orElseThrow().getPassword()));
+        assertFalse(encoder.threads.isEmpty());
+        assertTrue(encoder.threads.stream().allMatch(thread -> thread.startsWith("password-hashing-")));
+    }
+
+    @Test
+    void duplicatesWithinTheRequestAreSkipped() {
+        UserImportResponse response = userService.importUsers(Arrays.asList(
+                row("alice", "alice@example.com"),
+                row("alice", "other@example.com"),
+                row("bob", "alice@example.com"),
+                row("x", "x@example.com"),
+                null,
+                row("dave", "dave@example.com")));
+
+        assertEquals(6, response.getRequested());
+        assertEquals(2, response.getImported());
+        assertEquals(4, response.getSkipped());
+        assertEquals(List.of(
+                "row 1 (alice): Username already exists",
+                "row 2 (bob): Email already exists",
+                "row 3 (x): Username must be between 3 and 20 characters",
+                "row 4: Empty row"), response.getErrors());
+        assertEquals(2, encoder.encoded.size());
+        assertEquals("alice@example.com", userRepository.findByUsername("alice").orElseThrow().getEmail());
+    }
+
+    @Test
+    void existingUsersAreSkippedWithoutHashing() {
+        userService.registerUser(row("carol", "carol@example.com"));
+        encoder.encoded.clear();
+
+        UserImportResponse response = userService.importUsers(List.of(
+                row("carol", "new-carol@example.com"),
+                row("dave", "carol@example.com"),
+                row("erin", "erin@example.com")));
+
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getSkipped());
+        assertEquals(List.of(
+                "row 0 (carol): Username already exists",
+                "row 1 (dave): Email already exists"), response.getErrors());
+        assertEquals(List.of("secret-erin"), encoder.encoded);
+        assertTrue(userRepository.findByUsername("dave").isEmpty());
+    }
+
+    @Test
+    void errorLinesAreCappedButEveryRowIsCounted() {
+        List<SignupRequest> rows = new ArrayList<>();
+        for (int i = 0; i < UserService.MAX_IMPORT_ERRORS + 5; i++) {
+            rows.add(null);
+        }
+        rows.add(row("alice", "alice@example.com"));
+
+        UserImportResponse response = userService.importUsers(rows);
+
+        assertEquals(1, response.getImported());
+        assertEquals(UserService.MAX_IMPORT_ERRORS + 5, response.getSkipped());
+        assertEquals(UserService.MAX_IMPORT_ERRORS, response.getErrors().size());
+        assertEquals("row 999: Empty row", response.getErrors().get(UserService.MAX_IMPORT_ERRORS - 1));
+    }
+
+    @Test
+    void duplicateUsernameSignupIsReportedFromTheConstraint() {
+        userService.registerUser(row("alice", "alice@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(row("alice", "other@example.com")));
+        assertEquals("Username already exists", e.getMessage());
+    }
+
+    @Test
+    void duplicateEmailSignupIsReportedFromTheConstraint() {
+        userService.registerUser(row("alice", "alice@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(row("bob", "alice@example.com")));
+        assertEquals("Email already exists", e.getMessage());
+    }
+
+    private SignupRequest row(String username, String email) {
+        SignupRequest request = new SignupRequest();
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("secret-" + username);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.emailapp.emailservice.service;
+
+import com.emailapp.emailservice.dto.request.SignupRequest;
+import com.emailapp.emailservice.repository.UserImportRepository;
+import com.emailapp.emailservice.security.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({UserService.class, PasswordHashingExecutor.class, UserImportRepository.class,
+        UserServiceSignupTests.Beans.class})
+class UserServiceSignupTests {
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void signupIsASingleInsert() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        userService.registerUser(signup("alice", "alice@example.com"));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void duplicateUsernameKeepsTheExistingMessage() {
+        userService.registerUser(signup("alice", "alice@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(signup("alice", "other@example.com")));
+        assertEquals("Username already exists", e.getMessage());
+    }
+
+    @Test
+    void duplicateEmailKeepsTheExistingMessage() {
+        userService.registerUser(signup("alice", "alice@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(signup("bob", "alice@example.com")));
+        assertEquals("Email already exists", e.getMessage());
+    }
+
+    private SignupRequest signup(String username, String email) {
+        SignupRequest request = new SignupRequest();
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("secret123");
+        return request;
+    }
+}
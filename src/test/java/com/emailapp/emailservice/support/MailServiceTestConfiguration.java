@@ -0,0 +1,18 @@
+package com.emailapp.emailservice.support;
+
+import com.emailapp.emailservice.repository.MailSearchRepository;
+import com.emailapp.emailservice.repository.UserThreadBulkRepository;
+import com.emailapp.emailservice.service.*;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * MailService with the collaborators it needs, for @DataJpaTest slices that exercise it, plus
+ * {@link MailTestData} to persist the users and mails those tests start from.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+@Import({MailService.class, MailboxCounterService.class, MailSearchRepository.class, RecipientDirectory.class,
+        MailBodyCodec.class, MailBodyStore.class, AttachmentService.class, AttachmentStore.class,
+        ThreadSummaryService.class, UserThreadBulkRepository.class, MailArchiveService.class, MailTestData.class})
+public class MailServiceTestConfiguration {
+}
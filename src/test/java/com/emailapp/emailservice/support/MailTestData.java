@@ -0,0 +1,58 @@
+package com.emailapp.emailservice.support;
+
+import com.emailapp.emailservice.entity.*;
+import com.emailapp.emailservice.service.MailBodyCodec;
+import com.emailapp.emailservice.service.RecipientDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.List;
+
+/**
+ * Persists users, mails and mailbox rows through the test's entity manager, so they are rolled back
+ * with the test. Imported by {@link MailServiceTestConfiguration}.
+ */
+@TestComponent
+public class MailTestData {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MailBodyCodec mailBodyCodec;
+
+    @Autowired
+    private RecipientDirectory recipientDirectory;
+
+    // A user named username, reachable at username@example.com
+    public User user(String username) {
+        // Users are rolled back after each test; forget the ID an earlier test cached for the address
+        recipientDirectory.evict(List.of(username + "@example.com"));
+        User user = new User();
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        return entityManager.persistFlushFind(user);
+    }
+
+    public Mail mail(User sender, String subject, String content) {
+        Mail mail = new Mail();
+        mail.setSender(sender);
+        mail.setSubject(subject);
+        mail.setBody(entityManager.persist(mailBodyCodec.encode(content)));
+        return entityManager.persist(mail);
+    }
+
+    // The user's unread copy of mail in folder, as its sender for SENT and a recipient otherwise
+    public UserMailbox mailbox(User user, Mail mail, MailFolder folder) {
+        UserMailbox mailbox = new UserMailbox();
+        mailbox.setUser(user);
+        mailbox.setMail(mail);
+        mailbox.setFolder(folder);
+        mailbox.setMailRole(folder == MailFolder.SENT ? MailRole.SENDER : MailRole.RECIPIENT);
+        return entityManager.persist(mailbox);
+    }
+}
@@ -0,0 +1,22 @@
+package com.emailapp.emailservice.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * A PostgreSQL container as the test DataSource, for code that runs PostgreSQL-only SQL (upserts,
+ * SKIP LOCKED, partitions) and cannot be tested on H2. Each test context gets its own database.
+ * Import it together with @Testcontainers(disabledWithoutDocker = true), so the class is skipped
+ * where no Docker is available.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresTestConfiguration {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgres() {
+        return new PostgreSQLContainer<>("postgres:16-alpine");
+    }
+}